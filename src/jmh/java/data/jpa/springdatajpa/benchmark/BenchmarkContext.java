@@ -0,0 +1,34 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.SpringDataJpaApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * JMH 벤치마크에서 쓸 스프링 컨텍스트, MySQL 대신 내장 H2 를 쓰고 SQL 로그는 끔
+ * 2차 캐시 / 쿼리 캐시도 끔, 켜두면 같은 조회를 반복하는 벤치마크가 DB 대신 캐시만 재게 됨 (캐시를 재려면 extraProperties 로 다시 켬)
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraProperties) {
+        return new SpringApplicationBuilder(SpringDataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "decorator.datasource.enabled=false",
+                        "logging.level.root=warn",
+                        "logging.level.org.hibernate.sql=warn")
+                .properties(extraProperties)
+                .run();
+    }
+}
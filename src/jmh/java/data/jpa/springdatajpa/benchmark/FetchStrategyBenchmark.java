@@ -0,0 +1,138 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.dto.MemberRow;
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 회원 + 팀을 가져오는 방법별 처리량/할당량/SQL 수
+ * - fetchJoin        : findMemberFetchJoin (join fetch)
+ * - entityGraphQuery : findMemberEntityGraph (@EntityGraph + @Query)
+ * - entityGraphAll   : findAll() (@EntityGraph 오버라이드)
+ * - lazyNPlusOne     : findMemberCustom() 후 member.getTeam() 접근 (팀 수만큼 추가 쿼리, 2차 캐시가 있으면 캐시 조회)
+ * - dtoProjection    : findDTOData (DTO 로 바로 조회)
+ * - nativeProjection : findByNativeProjection (record 프로젝션, 한 페이지)
+ * op 당 SQL 수는 statements 보조 카운터로 출력
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FetchStrategyBenchmark {
+
+    @Param({"10", "100"})
+    int teams;
+
+    @Param({"10", "100"})
+    int membersPerTeam;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+    Statistics statistics;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SqlCounter {
+        public long statements;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<Team> teamList = new ArrayList<>();
+        for (int i = 0; i < teams; i++) {
+            teamList.add(new Team("team" + i));
+        }
+        teamList = context.getBean(TeamRepository.class).saveAllInChunks(teamList);
+        List<Member> members = new ArrayList<>();
+        for (Team team : teamList) {
+            for (int i = 0; i < membersPerTeam; i++) {
+                Member member = new Member(team.getName() + "-member" + i, i % 100);
+                member.setTeam(team);
+                members.add(member);
+            }
+        }
+        memberRepository.saveAllInChunks(members);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void fetchJoin(Blackhole bh, SqlCounter counter) {
+        run(counter, () -> consumeTeams(memberRepository.findMemberFetchJoin(), bh));
+    }
+
+    @Benchmark
+    public void entityGraphQuery(Blackhole bh, SqlCounter counter) {
+        run(counter, () -> consumeTeams(memberRepository.findMemberEntityGraph(), bh));
+    }
+
+    @Benchmark
+    public void entityGraphAll(Blackhole bh, SqlCounter counter) {
+        run(counter, () -> consumeTeams(memberRepository.findAll(), bh));
+    }
+
+    @Benchmark
+    public void lazyNPlusOne(Blackhole bh, SqlCounter counter) {
+        run(counter, () -> consumeTeams(memberRepository.findMemberCustom(), bh));
+    }
+
+    @Benchmark
+    public void dtoProjection(Blackhole bh, SqlCounter counter) {
+        run(counter, () -> {
+            for (MemberDTO dto : memberRepository.findDTOData()) {
+                bh.consume(dto.getTeamName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void nativeProjection(Blackhole bh, SqlCounter counter) {
+        run(counter, () -> {
+            for (MemberRow row : memberRepository.findByNativeProjection(PageRequest.of(0, 100))) {
+                bh.consume(row.teamName());
+            }
+        });
+    }
+
+    private void consumeTeams(List<Member> members, Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(member.getTeam().getName());
+        }
+    }
+
+    //한 op = 한 트렌젝션(영속성 컨텍스트)
+    private void run(SqlCounter counter, Runnable work) {
+        long before = statistics.getPrepareStatementCount();
+        readOnly.executeWithoutResult(status -> work.run());
+        counter.statements += statistics.getPrepareStatementCount() - before;
+    }
+}
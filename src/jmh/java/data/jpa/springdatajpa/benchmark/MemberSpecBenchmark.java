@@ -0,0 +1,92 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.MemberSpec;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * teamName + username 검색 한번의 시간/할당량 (할당량은 jmh 태스크의 -prof gc 의 gc.alloc.rate.norm)
+ * - criteria : findAll(Specification), 호출마다 Criteria 트리 생성 + SQL 변환
+ * - compiled : findAll(MemberSpec), 조건 조합별로 만들어 둔 JPQL 에 값만 바인딩
+ * 결과가 한 건이라 쿼리 실행보다 쿼리를 만드는 비용이 차이로 드러남
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemberSpecBenchmark {
+
+    private static final int TEAMS = 10;
+    private static final int MEMBERS_PER_TEAM = 100;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+
+    @State(Scope.Thread)
+    public static class Search {
+        int next;
+
+        String teamName() {
+            return "specTeam" + (next % TEAMS);
+        }
+
+        String username() {
+            return "specTeam" + (next % TEAMS) + "-member" + (next++ % MEMBERS_PER_TEAM);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            teams.add(new Team("specTeam" + i));
+        }
+        teams = context.getBean(TeamRepository.class).saveAllInChunks(teams);
+        List<Member> members = new ArrayList<>();
+        for (Team team : teams) {
+            for (int i = 0; i < MEMBERS_PER_TEAM; i++) {
+                members.add(new Member(team.getName() + "-member" + i, i % 100, team));
+            }
+        }
+        memberRepository.saveAllInChunks(members);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void criteria(Search search, Blackhole bh) {
+        String teamName = search.teamName();
+        Specification<Member> spec = MemberSpec.username(search.username()).and(MemberSpec.teamName(teamName));
+        bh.consume(readOnly.execute(status -> memberRepository.findAll(spec)));
+    }
+
+    @Benchmark
+    public void compiled(Search search, Blackhole bh) {
+        String teamName = search.teamName();
+        MemberSpec spec = MemberSpec.username(search.username()).and(MemberSpec.teamName(teamName));
+        bh.consume(readOnly.execute(status -> memberRepository.findAll(spec)));
+    }
+}
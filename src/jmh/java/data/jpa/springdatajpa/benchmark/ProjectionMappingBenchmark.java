@@ -0,0 +1,71 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.dto.MemberRow;
+import data.jpa.springdatajpa.repository.ProjectionMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쿼리 결과 row 하나를 프로젝션으로 바꾸고 getter 3개를 읽는 비용 (DB 없이 매핑만, 할당량은 -prof gc 의 gc.alloc.rate.norm)
+ * - proxy  : Spring Data 인터페이스 프로젝션과 같은 방식, row -> Map -> JDK 프록시, getter 마다 map 조회 + 변환
+ * - record : ProjectionMapper 로 record 생성, getter 는 필드 접근
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionMappingBenchmark {
+
+    private static final String[] ALIASES = {"id", "username", "teamName"};
+
+    public interface MemberView {
+        Long getId();
+        String getUsername();
+        String getTeamName();
+    }
+
+    ProjectionFactory projectionFactory;
+    ProjectionMapper<MemberRow> mapper;
+    long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        projectionFactory = new SpelAwareProxyProjectionFactory();
+        mapper = ProjectionMapper.of(MemberRow.class);
+    }
+
+    //hibernate 는 row 마다 새 배열을 넘김
+    private Object[] row() {
+        long id = next++;
+        return new Object[]{id, "member" + (id & 1023), "team" + (id & 15)};
+    }
+
+    @Benchmark
+    public void proxy(Blackhole bh) {
+        Object[] row = row();
+        Map<String, Object> tuple = new HashMap<>(4);
+        for (int i = 0; i < ALIASES.length; i++) {
+            tuple.put(ALIASES[i], row[i]);
+        }
+        MemberView view = projectionFactory.createProjection(MemberView.class, tuple);
+        bh.consume(view.getId());
+        bh.consume(view.getUsername());
+        bh.consume(view.getTeamName());
+    }
+
+    @Benchmark
+    public void record(Blackhole bh) {
+        MemberRow memberRow = mapper.transformTuple(row(), ALIASES);
+        bh.consume(memberRow.id());
+        bh.consume(memberRow.username());
+        bh.consume(memberRow.teamName());
+    }
+}
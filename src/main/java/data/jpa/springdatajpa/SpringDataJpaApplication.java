@@ -4,13 +4,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
-@EnableJpaAuditing
+//@EnableJpaAuditing 대신 entity.AuditingListener 가 감사 필드를 채움 (AuditorAware 빈은 그대로 사용)
 @SpringBootApplication
 //@EnableJpaRepositories(basePackages = "data.jpa.springdatajpa.repository") 부트를 사용 안하면 이러한 설정을 해야됨
 public class SpringDataJpaApplication {
@@ -24,7 +24,9 @@ public class SpringDataJpaApplication {
         return new AuditorAware<String>() {
             @Override
             public Optional<String> getCurrentAuditor() {
-                return Optional.of(UUID.randomUUID().toString());
+                //UUID.randomUUID() 는 SecureRandom 을 거쳐서 느리고 스레드끼리 경합함, 감사용 랜덤 값이면 충분
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                return Optional.of(new UUID(random.nextLong(), random.nextLong()).toString());
             }
         };
     }
@@ -0,0 +1,65 @@
+package data.jpa.springdatajpa.config;
+
+import data.jpa.springdatajpa.repository.AuditedBulkAgePlus;
+import data.jpa.springdatajpa.service.AuditHistoryListener;
+import data.jpa.springdatajpa.service.AuditedBulkInterceptor;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Member / Team 변경 이력 (AuditHistory) 연결
+ * - 엔티티 변경 : AuditHistoryListener 를 hibernate post insert/update/delete 리스너로 등록
+ * - 벌크 쿼리 : @AuditedBulkAgePlus 리포지토리 메서드에 AuditedBulkInterceptor advice 추가
+ * app.audit-history.enabled=false 면 둘 다 등록하지 않음
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.audit-history.enabled", havingValue = "true", matchIfMissing = true)
+public class AuditHistoryConfig {
+
+    private final EntityManagerFactory emf;
+    private final AuditHistoryListener auditHistoryListener;
+
+    @PostConstruct
+    public void registerListener() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, auditHistoryListener);
+        registry.appendListeners(EventType.POST_UPDATE, auditHistoryListener);
+        registry.appendListeners(EventType.POST_DELETE, auditHistoryListener);
+    }
+
+    @Bean
+    public static BeanPostProcessor auditedBulkPostProcessor(ObjectProvider<AuditHistoryListener> listener,
+                                                             ObjectProvider<EntityManager> em,
+                                                             ObjectProvider<PlatformTransactionManager> transactionManager) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    //@AuditedBulkAgePlus 메서드가 있는 리포지토리에만, 나머지 리포지토리 호출에는 advice 가 끼지 않음
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> {
+                                if (repositoryInformation.getQueryMethods().stream()
+                                        .anyMatch(method -> method.isAnnotationPresent(AuditedBulkAgePlus.class))) {
+                                    proxyFactory.addAdvice(new AuditedBulkInterceptor(listener, em, transactionManager));
+                                }
+                            }));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package data.jpa.springdatajpa.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+
+/**
+ * hibernate 2차 캐시 region 의 hit/miss/put/eviction 을 /actuator/metrics 의 cache.* 로 노출
+ * (hibernate.second.level.cache.* 는 hibernate-micrometer 가 statistics 로부터 자동 등록)
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory emf) {
+        return registry -> {
+            SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+            if (!(sessionFactory.getCache().getRegionFactory() instanceof JCacheRegionFactory regionFactory)) {
+                return;
+            }
+            CacheManager cacheManager = regionFactory.getCacheManager();
+            for (String name : cacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, cacheManager.getCache(name));
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package data.jpa.springdatajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * app.datasource.replicas 가 설정된 경우에만 읽기/쓰기 DataSource 분리
+ * - 읽기 전용 트렌젝션(@Transactional(readOnly = true)) -> 복제 DB
+ *   MemberRepository / TeamRepository 는 인터페이스에 readOnly 를 붙여서 선언한 조회 메서드도 복제 DB 로,
+ *   JpaRepository 에서 물려받은 findById 등은 SimpleJpaRepository 가 원래 readOnly
+ * - 그 외 (save, @Modifying, @Lock 쿼리는 readOnly = false 트렌젝션) -> 원본 DB
+ * 이미 쓰기 트렌젝션 안에서 호출된 조회는 같은 커넥션(원본)을 그대로 사용
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource", name = "replicas[0].url")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, ReplicaProperties replicaProperties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<HikariDataSource> replicas = replicaProperties.getReplicas().stream().map(replica -> {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + replica.getUrl());
+            dataSource.setDriverClassName(properties.determineDriverClassName());
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername());
+            dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            return dataSource;
+        }).toList();
+
+        return new RoutingDataSourceProxy(new ReadWriteRoutingDataSource(primary,
+                new ReplicaPoolDataSource(replicas, replicaProperties.getSelection())));
+    }
+
+    //컨텍스트 종료시 스프링이 close() 를 호출해서 커넥션 풀들을 정리
+    static class RoutingDataSourceProxy extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final ReadWriteRoutingDataSource routing;
+
+        RoutingDataSourceProxy(ReadWriteRoutingDataSource routing) {
+            super(routing);
+            this.routing = routing;
+        }
+
+        @Override
+        public void close() {
+            routing.close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package data.jpa.springdatajpa.config;
+
+import data.jpa.springdatajpa.entity.AuditStamp;
+import data.jpa.springdatajpa.entity.MemberUsernameIndexListener;
+import data.jpa.springdatajpa.entity.TeamMemberCountListener;
+import data.jpa.springdatajpa.repository.MemberUsernameIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEventListener;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * hibernate 이벤트 리스너 등록 (JPA 의 @EntityListeners 와 달리 세션에 접근해서 쿼리를 보낼 수 있음)
+ */
+@Configuration
+@RequiredArgsConstructor
+public class HibernateListenerConfig {
+
+    private final EntityManagerFactory emf;
+    private final MemberUsernameIndex memberUsernameIndex;
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        TeamMemberCountListener teamMemberCountListener = new TeamMemberCountListener();
+        registry.appendListeners(EventType.POST_INSERT, teamMemberCountListener);
+        registry.appendListeners(EventType.POST_UPDATE, teamMemberCountListener);
+        registry.appendListeners(EventType.POST_DELETE, teamMemberCountListener);
+
+        //flush 가 시작될 때마다 감사 시각을 새로 구하도록 (AuditStamp)
+        registry.prependListeners(EventType.FLUSH, (FlushEventListener) event -> AuditStamp.nextFlush());
+        registry.prependListeners(EventType.AUTO_FLUSH, (AutoFlushEventListener) event -> AuditStamp.nextFlush());
+
+        MemberUsernameIndexListener memberUsernameIndexListener = new MemberUsernameIndexListener(memberUsernameIndex);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, memberUsernameIndexListener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, memberUsernameIndexListener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, memberUsernameIndexListener);
+    }
+}
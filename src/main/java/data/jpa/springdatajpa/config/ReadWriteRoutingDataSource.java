@@ -0,0 +1,41 @@
+package data.jpa.springdatajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * @Transactional(readOnly = true) 트렌젝션이면 복제 DB, 아니면 원본(primary) DB
+ * 트렌젝션의 readOnly 여부는 커넥션을 얻은 뒤에 세팅되므로 LazyConnectionDataSourceProxy 로 감싸서
+ * 실제 쿼리를 보낼 때 커넥션을 얻도록 해야함 (DataSourceRoutingConfig)
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final HikariDataSource primary;
+    private final ReplicaPoolDataSource replicas;
+
+    ReadWriteRoutingDataSource(HikariDataSource primary, ReplicaPoolDataSource replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replicas));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+
+    @Override
+    public void close() {
+        replicas.close();
+        primary.close();
+    }
+}
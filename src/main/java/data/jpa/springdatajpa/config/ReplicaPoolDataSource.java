@@ -0,0 +1,58 @@
+package data.jpa.springdatajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 여러 복제 DB 중 하나를 골라 커넥션을 줌
+ */
+class ReplicaPoolDataSource extends AbstractDataSource implements Closeable {
+
+    private final List<HikariDataSource> replicas;
+    private final ReplicaProperties.Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReplicaPoolDataSource(List<HikariDataSource> replicas, ReplicaProperties.Selection selection) {
+        this.replicas = replicas;
+        this.selection = selection;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return select().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return select().getConnection(username, password);
+    }
+
+    private HikariDataSource select() {
+        if (selection == ReplicaProperties.Selection.LEAST_CONNECTIONS) {
+            HikariDataSource least = replicas.get(0);
+            int leastActive = Integer.MAX_VALUE;
+            for (HikariDataSource replica : replicas) {
+                HikariPoolMXBean pool = replica.getHikariPoolMXBean();    //아직 커넥션을 한번도 안 만든 풀은 null
+                int active = pool == null ? 0 : pool.getActiveConnections();
+                if (active < leastActive) {
+                    least = replica;
+                    leastActive = active;
+                }
+            }
+            return least;
+        }
+        return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,34 @@
+package data.jpa.springdatajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 복제 DB 설정 (app.datasource.replicas), 하나도 없으면 모든 요청이 spring.datasource 로 감
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReplicaProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+    private Selection selection = Selection.ROUND_ROBIN;
+
+    public enum Selection {
+        ROUND_ROBIN,        //복제 DB 를 돌아가며 사용
+        LEAST_CONNECTIONS   //사용 중인 커넥션이 가장 적은 복제 DB
+    }
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,37 @@
+package data.jpa.springdatajpa.config;
+
+import data.jpa.springdatajpa.monitor.RepositoryMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * 리포지토리 메서드별 메트릭, /actuator/metrics 에서 확인
+ * - spring.data.repository.invocations : 응답시간 (스프링 부트 기본, percentile 은 application.yml 에서 설정)
+ * - repository.rows, repository.entities.loaded : RepositoryMetricsInterceptor
+ * - hibernate.session.flush, hibernate.session.dirty_check : SessionMetricsListener
+ * - hibernate.* : SessionFactory 통계 (hibernate-micrometer)
+ */
+@Configuration
+public class RepositoryMetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry,
+                                                                   ObjectProvider<EntityManagerFactory> emf) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(new RepositoryMetricsInterceptor(
+                                    repositoryInformation.getRepositoryInterface().getSimpleName(), registry, emf))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package data.jpa.springdatajpa.config;
+
+import data.jpa.springdatajpa.monitor.RepositorySqlScopeInterceptor;
+import data.jpa.springdatajpa.monitor.SqlBudgetHandlerInterceptor;
+import data.jpa.springdatajpa.monitor.SqlBudgetMonitor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * p6spy 로 잡은 SQL 을 HTTP 요청 / 리포지토리 메서드 단위로 세도록 연결
+ */
+@Configuration
+@RequiredArgsConstructor
+public class SqlMonitorConfig implements WebMvcConfigurer {
+
+    private final SqlBudgetHandlerInterceptor sqlBudgetHandlerInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlBudgetHandlerInterceptor);
+    }
+
+    //data jpa 가 리포지토리 프록시를 만들 때 advice 를 하나 더 끼워넣음 (BeanPostProcessor 는 static 으로 등록해야 다른 빈보다 먼저 생성됨)
+    @Bean
+    public static BeanPostProcessor repositorySqlScopePostProcessor(ObjectProvider<SqlBudgetMonitor> monitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(new RepositorySqlScopeInterceptor(
+                                    repositoryInformation.getRepositoryInterface().getSimpleName(), monitor))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,22 +1,55 @@
 package data.jpa.springdatajpa.controller;
 
+import data.jpa.springdatajpa.dto.CursorPage;
+import data.jpa.springdatajpa.dto.MemberCursor;
 import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.dto.MemberDashboardDTO;
+import data.jpa.springdatajpa.dto.MemberHistoryDTO;
 import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.CountMode;
+import data.jpa.springdatajpa.monitor.SqlBudget;
 import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.service.AuditHistoryService;
+import data.jpa.springdatajpa.service.MemberDashboardService;
+import data.jpa.springdatajpa.service.MemberExportService;
+import data.jpa.springdatajpa.service.MemberImportResult;
+import data.jpa.springdatajpa.service.MemberImportService;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
+    private static final int MAX_PAGE_SIZE = 2000;  //application.yml 의 max-page-size 와 맞춤
+
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberImportService memberImportService;
+    private final MemberDashboardService memberDashboardService;
+    private final AuditHistoryService auditHistoryService;
 
     @GetMapping("/member/{id}")
     public String findMember(@PathVariable("id") Long id) {
@@ -32,10 +65,74 @@ public class MemberController {
 
     //   http://주소/member?page=1&size=3&sort=id,desc  <- 이렇게 파라미터를 추가해서 던지면 DATA JPA 알아서 처리해줌
     @GetMapping("/member")
-    public Page<MemberDTO> list(@PageableDefault(size = 5,sort = "username") Pageable pageable) {
-        Page<Member> page = memberRepository.findAll(pageable);
-        Page<MemberDTO> map = page.map(MemberDTO::new);//엔티티 노출을 방지하기위해 DTO 매핑
-        return map;
+    //   count=CACHED|ESTIMATED|SKIP 로 전체 갯수 계산 방식 선택 가능 (기본은 count 쿼리, 마지막 페이지는 생략)
+    public Page<MemberDTO> list(@PageableDefault(size = 5,sort = "username") Pageable pageable,
+                                @RequestParam(value = "count", defaultValue = "EXACT") CountMode countMode) {
+        //엔티티를 읽어서 MemberDTO::new 로 바꾸면 엔티티 스냅샷 + teamName 을 채우려면 team 지연로딩까지 생김 -> DTO 로 바로 조회
+        return memberRepository.findAllDTO(pageable, countMode);
+    }
+
+    //   http://주소/member?after=&size=20  -> 첫 페이지, 응답의 next 값을 다음 요청의 after 로 넘김
+    //   offset 이 없으므로 아무리 뒤 페이지여도 조회 비용이 같음 (대신 임의의 페이지 번호로 점프는 불가)
+    @GetMapping(value = "/member", params = "after")
+    @SqlBudget(1)
+    public CursorPage<MemberDTO> listAfter(@RequestParam("after") String after,
+                                           @RequestParam(value = "size", defaultValue = "5") int size) {
+        ScrollPosition position;
+        try {
+            position = MemberCursor.toScrollPosition(after);
+        } catch (IllegalArgumentException e) {  //클라이언트가 커서를 잘못 보낸 것이므로 500 이 아니라 400
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        Window<Member> window = memberRepository.findAllByOrderByUsernameAscIdAsc(
+                position, Limit.of(Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+        return CursorPage.of(window, MemberDTO::new);
+    }
+
+    //   http://주소/member/dashboard?age=10&page=1  서로 관계없는 조회 4개를 동시에 실행
+    @GetMapping("/member/dashboard")
+    public MemberDashboardDTO dashboard(@RequestParam("age") int age,
+                                        @PageableDefault(size = 5, sort = "username") Pageable pageable) {
+        return memberDashboardService.dashboard(age, pageable);
+    }
+
+    //   http://주소/member/1/history?at=2024-01-01T10:00:00  해당 시각의 회원 상태 (변경 이력으로 다시 만듦)
+    @GetMapping("/member/{id}/history")
+    public ResponseEntity<MemberHistoryDTO> history(@PathVariable("id") Long id,
+                                                    @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.of(auditHistoryService.memberAt(id, at));
+    }
+
+    //   http://주소/member/export?format=csv  (기본은 한 줄에 회원 하나씩 json, NDJSON)
+    //   StreamingResponseBody 는 별도 스레드에서 응답에 바로 쓰므로 전체 결과를 메모리에 모으지 않음
+    @GetMapping("/member/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(memberExportService::exportCsv);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(memberExportService::exportNdjson);
+    }
+
+    //   http://주소/member/scan?age=10  나이가 같은 회원 전체를 NDJSON 으로, 페이지를 하나씩 요청하지 않고 서버에서 slice 단위로 이어서 읽음
+    @GetMapping("/member/scan")
+    public ResponseEntity<StreamingResponseBody> scan(@RequestParam("age") int age) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> memberExportService.exportByAgeNdjson(age, out));
+    }
+
+    //   http://주소/member/import?format=csv  요청 body 로 CSV(헤더 username,age,teamName) 또는 NDJSON 을 받아서 대량 등록
+    //   없는 팀 이름은 팀을 새로 만들고, 엔티티를 거치지 않고 JDBC batch insert (MemberImportService)
+    @PostMapping("/member/import")
+    public MemberImportResult importMembers(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                            InputStream body) throws IOException {
+        MemberImportService.Format importFormat = "csv".equalsIgnoreCase(format)
+                ? MemberImportService.Format.CSV : MemberImportService.Format.NDJSON;
+        return memberImportService.importMembers(body, importFormat);
     }
 
 
@@ -0,0 +1,34 @@
+package data.jpa.springdatajpa.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * keyset 페이징 응답, 전체 갯수(count 쿼리) 없이 다음 페이지를 가리키는 커서만 내려준다.
+ */
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String next;      //다음 페이지 요청시 after 로 넘길 값, 마지막 페이지면 null
+    private final boolean hasNext;
+
+    public CursorPage(List<T> content, String next, boolean hasNext) {
+        this.content = content;
+        this.next = next;
+        this.hasNext = hasNext;
+    }
+
+    public static <E, T> CursorPage<T> of(Window<E> window, Function<? super E, T> mapper) {
+        List<T> content = window.getContent().stream().<T>map(mapper).toList();
+        if (window.isEmpty() || !window.hasNext()) {
+            return new CursorPage<>(content, null, false);
+        }
+        KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        return new CursorPage<>(content, MemberCursor.from(last).encode(), true);
+    }
+}
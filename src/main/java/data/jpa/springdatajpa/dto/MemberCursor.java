@@ -0,0 +1,63 @@
+package data.jpa.springdatajpa.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * keyset(seek) 페이징에서 "마지막으로 본 행"의 위치 (username, member_id)
+ * 클라이언트에는 URL 에 안전한 Base64 문자열로 내려주고, 다음 요청의 after 파라미터로 다시 받는다.
+ */
+@Getter
+public class MemberCursor {
+
+    private static final char SEPARATOR = '\n';
+
+    private final String username;
+    private final Long id;
+
+    public MemberCursor(String username, Long id) {
+        this.username = username;
+        this.id = id;
+    }
+
+    public static MemberCursor decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 커서 값입니다: " + cursor, e);
+        }
+        int idx = raw.lastIndexOf(SEPARATOR);   //username 안에 구분자가 있어도 id 는 항상 마지막
+        if (idx < 0) {
+            throw new IllegalArgumentException("잘못된 커서 값입니다: " + cursor);
+        }
+        return new MemberCursor(raw.substring(0, idx), Long.valueOf(raw.substring(idx + 1)));
+    }
+
+    public String encode() {
+        String raw = username + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * after 파라미터가 비어있으면 첫 페이지(처음부터 seek)
+     */
+    public static ScrollPosition toScrollPosition(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return ScrollPosition.keyset();
+        }
+        MemberCursor decoded = decode(cursor);
+        return ScrollPosition.forward(Map.of("username", decoded.getUsername(), "id", decoded.getId()));
+    }
+
+    public static MemberCursor from(KeysetScrollPosition position) {
+        Map<String, Object> keys = position.getKeys();
+        return new MemberCursor((String) keys.get("username"), ((Number) keys.get("id")).longValue());
+    }
+}
@@ -0,0 +1,22 @@
+package data.jpa.springdatajpa.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+@Getter
+public class MemberDashboardDTO {
+
+    private final Page<MemberDTO> members;
+    private final List<String> teamNames;
+    private final long memberCount;
+    private final List<String> usernames;
+
+    public MemberDashboardDTO(Page<MemberDTO> members, List<String> teamNames, long memberCount, List<String> usernames) {
+        this.members = members;
+        this.teamNames = teamNames;
+        this.memberCount = memberCount;
+        this.usernames = usernames;
+    }
+}
@@ -0,0 +1,28 @@
+package data.jpa.springdatajpa.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 변경 이력으로 다시 만든 특정 시점의 회원 상태
+ */
+@Getter
+public class MemberHistoryDTO {
+
+    private final Long id;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+    private final LocalDateTime changedAt;     //마지막으로 바뀐 시각 (벌크 포함)
+    private final String changedBy;
+
+    public MemberHistoryDTO(Long id, String username, int age, Long teamId, LocalDateTime changedAt, String changedBy) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.changedAt = changedAt;
+        this.changedBy = changedBy;
+    }
+}
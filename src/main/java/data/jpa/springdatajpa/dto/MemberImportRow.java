@@ -0,0 +1,11 @@
+package data.jpa.springdatajpa.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * 회원 대량 등록 입력의 한 줄 (CSV 의 한 행 / NDJSON 의 한 줄), age 가 없으면 0, teamName 이 없거나 비어있으면 팀 없음
+ * export 결과(id, username, teamName)를 그대로 다시 넣을 수 있도록 모르는 필드는 무시 (id 는 새로 받음)
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MemberImportRow(String username, Integer age, String teamName) {
+}
@@ -0,0 +1,7 @@
+package data.jpa.springdatajpa.dto;
+
+/**
+ * 네이티브 쿼리 회원 목록의 한 줄, ProjectionMapper 가 row 에서 바로 만든다 (인터페이스 프로젝션 프록시 대신)
+ */
+public record MemberRow(Long id, String username, String teamName) {
+}
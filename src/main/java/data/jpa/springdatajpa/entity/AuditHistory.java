@@ -0,0 +1,98 @@
+package data.jpa.springdatajpa.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Member / Team 변경 이력 (append-only), 커밋된 변경만 AuditHistoryWriter 가 비동기로 모아서 insert
+ * - INSERT / UPDATE : 변경 후 상태 전체 (member 는 username, age, team_id / team 은 name)
+ * - DELETE : 삭제 직전 상태
+ * - BULK_AGE_PLUS : 행마다 남기지 않고 벌크 쿼리의 조건만 남김 (age >= age, member_id between fromId and toId)
+ *   특정 시점의 회원 상태는 마지막 스냅샷 이후의 벌크 조건을 다시 적용해서 구함 (AuditHistoryService)
+ * JPA 로 저장하지 않으므로 id 는 DB auto increment, id 는 writer 가 insert 한 순서라 커밋 순서와 다를 수 있음
+ * (커밋 후 콜백 순서, 큐가 꽉 찼을 때 호출한 스레드에서 먼저 insert 등) -> 순서는 커밋 직전에 받은 commitSeq 로 (CommitSequence)
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = {
+        @Index(name = "idx_audit_history_entity", columnList = "entity_type, entity_id, commit_seq"),
+        @Index(name = "idx_audit_history_operation", columnList = "operation, commit_seq")
+})
+public class AuditHistory {
+
+    public enum EntityType {MEMBER, TEAM}
+
+    public enum Operation {INSERT, UPDATE, DELETE, BULK_AGE_PLUS}
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "audit_history_id")
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private EntityType entityType;
+    private Long entityId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Operation operation;
+    @Column(nullable = false)
+    private long commitSeq;
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+    private String changedBy;
+
+    private String username;
+    private Integer age;        //BULK_AGE_PLUS 는 조건의 최소 나이
+    private Long teamId;
+    private String name;
+    private Long fromId;        //BULK_AGE_PLUS 의 member_id 범위, null 이면 전체
+    private Long toId;
+
+    public static AuditHistory member(Operation operation, Long memberId, LocalDateTime changedAt, String changedBy,
+                                      String username, Integer age, Long teamId) {
+        AuditHistory history = new AuditHistory(EntityType.MEMBER, memberId, operation, changedAt, changedBy);
+        history.username = username;
+        history.age = age;
+        history.teamId = teamId;
+        return history;
+    }
+
+    public static AuditHistory team(Operation operation, Long teamId, LocalDateTime changedAt, String name) {
+        AuditHistory history = new AuditHistory(EntityType.TEAM, teamId, operation, changedAt, null);
+        history.name = name;
+        return history;
+    }
+
+    public static AuditHistory bulkAgePlus(int age, Long fromId, Long toId, LocalDateTime changedAt) {
+        AuditHistory history = new AuditHistory(EntityType.MEMBER, null, Operation.BULK_AGE_PLUS, changedAt, null);
+        history.age = age;
+        history.fromId = fromId;
+        history.toId = toId;
+        return history;
+    }
+
+    private AuditHistory(EntityType entityType, Long entityId, Operation operation, LocalDateTime changedAt, String changedBy) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.changedAt = changedAt;
+        this.changedBy = changedBy;
+    }
+
+    //커밋 직전, 변경한 row 의 락을 들고 있을 때 호출
+    public void markCommitted(long commitSeq) {
+        this.commitSeq = commitSeq;
+    }
+
+    //BULK_AGE_PLUS 가 이 회원(변경 전 나이)에 적용되는지
+    public boolean appliesTo(long memberId, int currentAge) {
+        return currentAge >= age
+                && (fromId == null || memberId >= fromId)
+                && (toId == null || memberId <= toId);
+    }
+}
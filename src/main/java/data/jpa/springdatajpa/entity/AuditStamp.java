@@ -0,0 +1,85 @@
+package data.jpa.springdatajpa.entity;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * 감사 필드에 넣을 값 (작성자, 시각)
+ * 트렌젝션 안에서는 트렌젝션에 묶어두고 재사용 -> 작성자는 트렌젝션당 한번, 시각은 flush 당 한번만 구함
+ * (flush 가 시작될 때 HibernateListenerConfig 의 flush 리스너가 nextFlush() 로 시각을 비움)
+ * 트렌젝션 밖이면 매번 새로 구함, 바깥 트렌젝션이 중단된 동안(REQUIRES_NEW 등)은 안쪽 트렌젝션의 값을 따로 구함
+ */
+public final class AuditStamp {
+
+    private static final Object KEY = AuditStamp.class;
+
+    private LocalDateTime now;
+    private String auditor;
+    private boolean auditorResolved;
+
+    static AuditStamp current() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new AuditStamp();
+        }
+        AuditStamp stamp = (AuditStamp) TransactionSynchronizationManager.getResource(KEY);
+        if (stamp == null) {
+            stamp = new AuditStamp();
+            bind(stamp);
+        }
+        return stamp;
+    }
+
+    //리소스는 트렌젝션이 중단(REQUIRES_NEW, NOT_SUPPORTED)돼도 스프링이 대신 떼어주지 않으므로 동기화에서 직접 떼고 다시 붙임
+    //안그러면 안쪽 트렌젝션이 바깥 트렌젝션의 작성자/시각을 그대로 씀
+    private static void bind(AuditStamp stamp) {
+        TransactionSynchronizationManager.bindResource(KEY, stamp);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(KEY);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(KEY, stamp);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(KEY);
+            }
+        });
+    }
+
+    //감사 필드와 같은 시각이 필요할 때 (AuditHistoryListener)
+    public static LocalDateTime currentTime() {
+        return current().now();
+    }
+
+    public static void nextFlush() {
+        AuditStamp stamp = (AuditStamp) TransactionSynchronizationManager.getResource(KEY);
+        if (stamp != null) {
+            stamp.now = null;
+        }
+    }
+
+    LocalDateTime now() {
+        if (now == null) {
+            now = LocalDateTime.now();
+        }
+        return now;
+    }
+
+    String auditor(ObjectProvider<AuditorAware<String>> auditorAware) {
+        if (!auditorResolved) {
+            AuditorAware<String> provider = auditorAware.getIfAvailable();
+            auditor = provider == null ? null : provider.getCurrentAuditor().orElse(null);
+            auditorResolved = true;
+        }
+        return auditor;
+    }
+}
@@ -0,0 +1,39 @@
+package data.jpa.springdatajpa.entity;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+
+/**
+ * AuditingEntityListener 대신 쓰는 감사 리스너
+ * - AuditingEntityListener 는 엔티티마다 AuditorAware 호출 + 현재 시각 + 리플렉션으로 필드 4개를 세팅
+ * - 여기서는 AuditStamp 로 작성자/시각을 재사용하고 BaseTimeEntity/BaseEntity 의 메서드를 직접 호출
+ * 엔티티 리스너도 hibernate 가 스프링 빈으로 만들어주므로 (SpringBeanContainer) 생성자 주입이 됨
+ */
+public class AuditingListener {
+
+    private final ObjectProvider<AuditorAware<String>> auditorAware;
+
+    public AuditingListener(ObjectProvider<AuditorAware<String>> auditorAware) {
+        this.auditorAware = auditorAware;
+    }
+
+    @PrePersist
+    public void prePersist(BaseTimeEntity entity) {
+        AuditStamp stamp = AuditStamp.current();
+        entity.markCreated(stamp.now());
+        if (entity instanceof BaseEntity auditable) {
+            auditable.markCreatedBy(stamp.auditor(auditorAware));
+        }
+    }
+
+    @PreUpdate
+    public void preUpdate(BaseTimeEntity entity) {
+        AuditStamp stamp = AuditStamp.current();
+        entity.markModified(stamp.now());
+        if (entity instanceof BaseEntity auditable) {
+            auditable.markModifiedBy(stamp.auditor(auditorAware));
+        }
+    }
+}
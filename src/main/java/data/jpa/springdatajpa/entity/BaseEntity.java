@@ -1,18 +1,11 @@
 package data.jpa.springdatajpa.entity;
 
 import jakarta.persistence.Column;
-import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedBy;
-import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import java.time.LocalDateTime;
-
-@EntityListeners(AuditingEntityListener.class)
 @MappedSuperclass
 @Getter
 public class BaseEntity extends BaseTimeEntity{
@@ -21,4 +14,13 @@ public class BaseEntity extends BaseTimeEntity{
     private String createBy;
     @LastModifiedBy
     private String lastModifiedBy;
+
+    void markCreatedBy(String auditor) {
+        this.createBy = auditor;
+        this.lastModifiedBy = auditor;
+    }
+
+    void markModifiedBy(String auditor) {
+        this.lastModifiedBy = auditor;
+    }
 }
@@ -4,15 +4,14 @@ import jakarta.persistence.Column;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
-import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class)
+//값은 AuditingListener 가 아래 메서드로 직접 채움 (AuditingEntityListener 처럼 리플렉션을 쓰지 않음)
+//@CreatedDate 등은 어떤 필드가 감사 필드인지 표시용으로 남겨둠
+@EntityListeners(AuditingListener.class)
 @MappedSuperclass
 @Getter
 public class BaseTimeEntity {
@@ -21,4 +20,13 @@ public class BaseTimeEntity {
     private LocalDateTime createdTime;
     @LastModifiedDate
     private LocalDateTime updateTime;
+
+    void markCreated(LocalDateTime now) {
+        this.createdTime = now;
+        this.updateTime = now;
+    }
+
+    void markModified(LocalDateTime now) {
+        this.updateTime = now;
+    }
 }
@@ -0,0 +1,23 @@
+package data.jpa.springdatajpa.entity;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * audit_history.commit_seq 값, 커밋 직전(트렌젝션이 잡은 row 락을 아직 들고 있을 때)에 받음
+ * -> 같은 row 를 바꾸는 트렌젝션끼리는 락을 잡은 순서 = 커밋 순서 = 받은 값 순서 (이력이 큐에 들어간 순서나 audit_history.id 와 상관없음)
+ * epoch 마이크로초 기준으로 단조 증가하므로 재시작해도 이전 값보다 커짐 (서버가 여러 대면 서버끼리 시계 차이만큼 어긋날 수 있음)
+ */
+public final class CommitSequence {
+
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private CommitSequence() {
+    }
+
+    public static long next() {
+        Instant now = Instant.now();
+        long micros = now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+        return LAST.updateAndGet(last -> Math.max(last + 1, micros));
+    }
+}
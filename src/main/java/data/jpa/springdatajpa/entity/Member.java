@@ -2,6 +2,8 @@ package data.jpa.springdatajpa.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Getter@Setter
@@ -13,10 +15,18 @@ import lombok.*;
         query = "select m from Member m where m.username = :username"
 )
 @NamedEntityGraph(name = "Member.all",attributeNodes = @NamedAttributeNode("team"))// 네임 드 엔티티 그래프
+@Table(indexes = {  //keyset 페이징은 정렬 컬럼 순서 그대로의 인덱스가 있어야 seek 가능
+        @Index(name = "idx_member_username_id", columnList = "username, member_id"),
+        @Index(name = "idx_member_age_username_id", columnList = "age, username, member_id")
+})
 public class Member extends BaseEntity  {
 
+    //그냥 @GeneratedValue 면 insert 마다 시퀀스 테이블에 lock 을 걸고 값을 가져옴
+    //allocationSize 만큼 id 블록을 한번에 받아서 메모리에서 나눠줌 (pooled-lo), 시퀀스 접근은 1000건에 한번
+    //IDENTITY 와 달리 persist 시점에 insert 를 하지 않아도 되므로 JDBC batch 도 그대로 동작
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 1000)
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -24,6 +34,13 @@ public class Member extends BaseEntity  {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")//외래키 명 설정
     private Team team;
+    //낙관적 락, update 시 where version = ? 로 다른 트렌젝션이 먼저 바꿨는지 확인 (OptimisticRetryExecutor 로 재시도)
+    //JDBC 로 직접 insert 하는 경우를 위해 DB 기본값 0
+    @Version
+    @Setter(AccessLevel.NONE)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
 
 
 //    protected Member() { @NoArgsConstructor(access = AccessLevel.PROTECTED)으로 인해 자동생성되어 만들어줄 필요값없음
@@ -47,8 +64,15 @@ public class Member extends BaseEntity  {
     }
 
     public void changeTeam(Team team) { //객체이기 때문에 연관관계의 상대방도 변경
+        //team.getMembers() 가 아직 로딩되지 않았으면 건드리지 않음 -> 팀원이 많은 팀도 컬렉션 전체를 읽어오지 않음
+        //팀원 수는 Team.memberCount 로 확인 (TeamMemberCountListener 가 DB 에서 원자적으로 증감)
+        if (this.team != null && Hibernate.isInitialized(this.team.getMembers())) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (Hibernate.isInitialized(team.getMembers())) {
+            team.getMembers().add(this);
+        }
     }
 
 
@@ -0,0 +1,85 @@
+package data.jpa.springdatajpa.entity;
+
+import data.jpa.springdatajpa.repository.MemberUsernameIndex;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Objects;
+
+/**
+ * Member 의 insert / username 변경 / delete 가 커밋된 뒤에 MemberUsernameIndex 에 반영
+ * 커밋 후에만 반영하므로 롤백된 변경은 인덱스에 들어가지 않음
+ */
+public class MemberUsernameIndexListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final MemberUsernameIndex index;
+
+    public MemberUsernameIndexListener(MemberUsernameIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            String username = username(event.getPersister(), event.getState());
+            if (username != null) {
+                index.put(username, (Long) event.getId());
+            }
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Long id = (Long) event.getId();
+        String after = username(event.getPersister(), event.getState());
+        if (event.getOldState() == null) {      //변경 전 값을 모름 (준영속 엔티티를 바로 update)
+            index.removeId(id);
+        } else {
+            String before = username(event.getPersister(), event.getOldState());
+            if (Objects.equals(before, after)) {
+                return;
+            }
+            if (before != null) {
+                index.remove(before, id);
+            }
+        }
+        if (after != null) {
+            index.put(after, id);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            String username = username(event.getPersister(), event.getDeletedState());
+            if (username != null) {
+                index.remove(username, (Long) event.getId());
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Member.class;
+    }
+
+    private static String username(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getPropertyIndex("username")];
+    }
+}
@@ -2,6 +2,9 @@ package data.jpa.springdatajpa.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -10,14 +13,30 @@ import java.util.List;
 @Getter@Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED )
 @ToString(of = {"id", "name"})
+//거의 바뀌지 않고 회원 조회때마다 읽히므로 2차 캐시에 둠 (region 설정은 application.conf 의 team)
+//JPA 로 수정/삭제하면 캐시도 같이 갱신되고, 벌크 JPQL 로 Team 을 수정하면 hibernate 가 region 전체를 비움
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
 public class Team {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 100)//Member 와 시퀀스를 공유하지 않음
     @Column(name = "team_id")
     private Long id;
     private String name;
     @OneToMany(mappedBy = "team")//외래키가 없는 쪽에 mappedBy를 넣어주는 게 좋음
     private List<Member> members = new ArrayList<>();
+    //팀원 수, members.size() 는 컬렉션 전체를 로딩하므로 대신 사용
+    //회원 저장/삭제/팀 변경시 트렌젝션 커밋 직전에 DB 에서 member_count = member_count + ? 로 반영됨 (TeamMemberCountListener)
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false)
+    private long memberCount;
+    //낙관적 락 (memberCount 증감은 native update 라 버전을 올리지 않음 -> 팀원 변경이 팀 이름 수정과 충돌하지 않음)
+    @Version
+    @Setter(AccessLevel.NONE)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
 
     public Team(String name) {
         this.name = name;
@@ -0,0 +1,108 @@
+package data.jpa.springdatajpa.entity;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member 의 insert / delete / team 변경을 보고 Team.memberCount 를 맞춰줌
+ * 트렌젝션 안의 변경을 팀별로 모아뒀다가 커밋 직전에 팀마다 update 한번 (member_count = member_count + ?)
+ * -> Team.members 컬렉션을 로딩하지 않고, 동시에 여러 트렌젝션이 같은 팀을 바꿔도 갯수가 틀어지지 않음
+ * 벌크 insert/delete 처럼 엔티티를 거치지 않는 경로는 직접 맞춰줘야 함
+ * 영속성 컨텍스트에 이미 올라와 있는 Team 의 memberCount 는 갱신되지 않음 (다음 트렌젝션에서 다시 읽으면 반영)
+ */
+public class TeamMemberCountListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String COUNT_SPACE = "team_member_count";
+
+    private final Map<SharedSessionContractImplementor, Map<Long, Long>> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            add(event.getSession(), teamId(event.getPersister(), event.getState()), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member && event.getOldState() != null) {
+            Long before = teamId(event.getPersister(), event.getOldState());
+            Long after = teamId(event.getPersister(), event.getState());
+            if (!Objects.equals(before, after)) {
+                add(event.getSession(), before, -1);
+                add(event.getSession(), after, 1);
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            add(event.getSession(), teamId(event.getPersister(), event.getDeletedState()), -1);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Object team = state[persister.getPropertyIndex("team")];
+        return team == null ? null : ((Team) team).getId();     //프록시여도 id 는 초기화 없이 꺼낼 수 있음
+    }
+
+    private void add(SessionImplementor session, Long teamId, long delta) {
+        if (teamId == null) {
+            return;
+        }
+        Map<Long, Long> deltas = pending.get(session);
+        if (deltas == null) {
+            deltas = new HashMap<>();
+            pending.put(session, deltas);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::flushCounts);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) this::afterCompletion);
+        }
+        deltas.merge(teamId, delta, Long::sum);
+    }
+
+    //HQL 벌크 update 로 Team 을 바꾸면 hibernate 가 team 2차 캐시 region 전체를 비우므로
+    //native update 의 동기화 대상을 별도 space 로 지정하고, 바뀐 팀의 캐시 항목만 지움
+    private void flushCounts(SessionImplementor session) {
+        Map<Long, Long> deltas = pending.get(session);
+        if (deltas == null) {
+            return;
+        }
+        deltas.forEach((teamId, delta) -> {
+            if (delta != 0) {
+                session.createNativeQuery("update team set member_count = member_count + :delta where team_id = :id")
+                        .addSynchronizedQuerySpace(COUNT_SPACE)
+                        .setParameter("delta", delta)
+                        .setParameter("id", teamId)
+                        .executeUpdate();
+                session.getFactory().getCache().evictEntityData(Team.class, teamId);
+            }
+        });
+    }
+
+    //커밋 전에 지운 뒤 커밋 전까지 다른 트렌젝션이 옛 member_count 를 읽어서 캐시에 다시 넣을 수 있으므로 커밋 후에 한번 더 지움
+    private void afterCompletion(boolean success, SharedSessionContractImplementor session) {
+        Map<Long, Long> deltas = pending.remove(session);
+        if (success && deltas != null) {
+            deltas.forEach((teamId, delta) -> {
+                if (delta != 0) {
+                    session.getFactory().getCache().evictEntityData(Team.class, teamId);
+                }
+            });
+        }
+    }
+}
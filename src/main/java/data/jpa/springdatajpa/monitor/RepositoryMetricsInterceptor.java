@@ -0,0 +1,136 @@
+package data.jpa.springdatajpa.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 리포지토리 메서드별 반환 row 수, 영속성 컨텍스트에 새로 올라온 엔티티 수 기록
+ * (응답시간 히스토그램은 스프링 부트가 등록하는 spring.data.repository.invocations 타이머 사용)
+ * - repository.rows{repository, method}
+ * - repository.entities.loaded{repository, method}
+ * 메서드별 meter 는 처음 호출될 때 한번만 만들어서 재사용하므로 호출마다 객체를 만들지 않음
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private static final ThreadLocal<String> CURRENT_METHOD = new ThreadLocal<>();
+
+    private final String repositoryName;
+    private final ObjectProvider<MeterRegistry> registry;
+    private final ObjectProvider<EntityManagerFactory> emf;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(String repositoryName, ObjectProvider<MeterRegistry> registry,
+                                        ObjectProvider<EntityManagerFactory> emf) {
+        this.repositoryName = repositoryName;
+        this.registry = registry;
+        this.emf = emf;
+    }
+
+    /**
+     * 현재 스레드에서 실행 중인 가장 바깥 리포지토리 메서드 이름 (없으면 null), SessionMetricsListener 가 flush 시간을 태깅할 때 사용
+     */
+    static String currentMethod() {
+        return CURRENT_METHOD.get();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Meters methodMeters = meters.get(invocation.getMethod());
+        if (methodMeters == null) {
+            MeterRegistry meterRegistry = registry.getIfAvailable();
+            if (meterRegistry == null) {
+                return invocation.proceed();
+            }
+            methodMeters = meters.computeIfAbsent(invocation.getMethod(), method -> new Meters(meterRegistry, repositoryName, method));
+        }
+
+        String outer = CURRENT_METHOD.get();
+        if (outer == null) {
+            CURRENT_METHOD.set(methodMeters.name);
+        }
+        SessionImplementor session = currentSession();
+        int managedBefore = session == null ? 0 : session.getPersistenceContextInternal().getNumberOfManagedEntities();
+        try {
+            Object result = invocation.proceed();
+            long rows = rows(result);
+            if (rows >= 0) {
+                methodMeters.rows.record(rows);
+            }
+            if (session != null && session.isOpen()) {
+                int loaded = session.getPersistenceContextInternal().getNumberOfManagedEntities() - managedBefore;
+                methodMeters.entitiesLoaded.record(Math.max(loaded, 0));
+            }
+            return result;
+        } finally {
+            if (outer == null) {
+                CURRENT_METHOD.remove();
+            }
+        }
+    }
+
+    //트렌젝션에 묶인 세션만 사용 (없으면 새로 만들지 않음)
+    private SessionImplementor currentSession() {
+        EntityManagerFactory factory = emf.getIfAvailable();
+        if (factory == null) {
+            return null;
+        }
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(factory);
+        return em == null ? null : em.unwrap(SessionImplementor.class);
+    }
+
+    //Stream 이나 count/exists 처럼 row 수를 알 수 없거나 의미없는 반환값은 -1
+    private static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Window<?> window) {
+            return window.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number || result instanceof Boolean || result instanceof java.util.stream.BaseStream<?, ?>) {
+            return -1;
+        }
+        return 1;
+    }
+
+    private static class Meters {
+        final String name;
+        final DistributionSummary rows;
+        final DistributionSummary entitiesLoaded;
+
+        Meters(MeterRegistry registry, String repositoryName, Method method) {
+            this.name = repositoryName + "." + method.getName();
+            this.rows = DistributionSummary.builder("repository.rows")
+                    .tag("repository", repositoryName)
+                    .tag("method", method.getName())
+                    .register(registry);
+            this.entitiesLoaded = DistributionSummary.builder("repository.entities.loaded")
+                    .tag("repository", repositoryName)
+                    .tag("method", method.getName())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package data.jpa.springdatajpa.monitor;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+/**
+ * 리포지토리 메서드 호출 단위로 SQL 수를 셈 (리포지토리 프록시에 advice 로 추가됨, SqlMonitorConfig 참고)
+ * 리포지토리가 돌려준 엔티티를 나중에 지연로딩하는 쿼리는 여기가 아니라 바깥 범위(HTTP 요청)에 기록된다.
+ */
+public class RepositorySqlScopeInterceptor implements MethodInterceptor {
+
+    private final String repositoryName;
+    private final ObjectProvider<SqlBudgetMonitor> monitor;
+
+    public RepositorySqlScopeInterceptor(String repositoryName, ObjectProvider<SqlBudgetMonitor> monitor) {
+        this.repositoryName = repositoryName;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result;
+        SqlScope scope = SqlScope.open(repositoryName + "." + invocation.getMethod().getName());
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            scope.close();
+            report(invocation, scope, false);
+            throw e;
+        }
+        scope.close();
+        report(invocation, scope, true);
+        return result;
+    }
+
+    private void report(MethodInvocation invocation, SqlScope scope, boolean enforce) {
+        SqlBudgetMonitor sqlBudgetMonitor = monitor.getIfAvailable();
+        if (sqlBudgetMonitor == null) {
+            return;
+        }
+        SqlBudget budget = AnnotatedElementUtils.findMergedAnnotation(invocation.getMethod(), SqlBudget.class);
+        sqlBudgetMonitor.report("repository", scope, budget == null ? null : budget.value(), enforce);
+    }
+}
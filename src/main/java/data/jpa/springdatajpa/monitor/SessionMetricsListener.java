@@ -0,0 +1,77 @@
+package data.jpa.springdatajpa.monitor;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.SessionEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 세션마다 하나씩 생성되는 hibernate 리스너 (hibernate.session.events.auto 로 등록)
+ * flush 전체 시간과 그 중 변경감지(dirty check, 엔티티마다 호출됨)에 쓴 시간의 합을 flush 단위로 기록
+ * - hibernate.session.flush{method}
+ * - hibernate.session.dirty_check{method}
+ * method 는 flush 가 일어난 리포지토리 메서드, 리포지토리 밖(트렌젝션 커밋 등)이면 none
+ * hibernate 가 직접 생성하므로 스프링 빈을 주입받지 못해 스프링 부트가 등록해주는 global registry 사용
+ */
+public class SessionMetricsListener implements SessionEventListener {
+
+    private static final String NONE = "none";
+    private static final Map<String, Timer> FLUSH = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> DIRTY_CHECK = new ConcurrentHashMap<>();
+
+    private long flushStart = -1;
+    private long dirtyCheckStart = -1;
+    private long dirtyCheckNanos;
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+        dirtyCheckNanos = 0;
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        if (flushStart >= 0) {
+            timer(FLUSH, "hibernate.session.flush").record(System.nanoTime() - flushStart, TimeUnit.NANOSECONDS);
+            timer(DIRTY_CHECK, "hibernate.session.dirty_check").record(dirtyCheckNanos, TimeUnit.NANOSECONDS);
+            flushStart = -1;
+        }
+        dirtyCheckNanos = 0;
+    }
+
+    @Override
+    public void partialFlushStart() {
+        flushStart();
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        flushEnd(numberOfEntities, numberOfCollections);
+    }
+
+    @Override
+    public void dirtyCalculationStart() {
+        dirtyCheckStart = System.nanoTime();
+    }
+
+    @Override
+    public void dirtyCalculationEnd(boolean dirty) {
+        if (dirtyCheckStart >= 0) {
+            dirtyCheckNanos += System.nanoTime() - dirtyCheckStart;
+            dirtyCheckStart = -1;
+        }
+    }
+
+    private static Timer timer(Map<String, Timer> timers, String name) {
+        String method = RepositoryMetricsInterceptor.currentMethod();
+        String tag = method == null ? NONE : method;
+        Timer timer = timers.get(tag);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(tag, t -> Timer.builder(name).tag("method", t).register(Metrics.globalRegistry));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,14 @@
+package data.jpa.springdatajpa.monitor;
+
+import java.lang.annotation.*;
+
+/**
+ * 컨트롤러 핸들러 메서드나 리포지토리 메서드 한번 호출에 허용하는 SQL 수
+ * 넘으면 sql.budget.exceeded 메트릭 증가 + 경고 로그, app.sql-budget.fail-on-exceed=true 면 SqlBudgetExceededException
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SqlBudget {
+    int value();
+}
@@ -0,0 +1,12 @@
+package data.jpa.springdatajpa.monitor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)   //HTTP 요청에서는 응답을 쓰기 전에 던지므로 (SqlBudgetResponseAdvice) 200 대신 500
+public class SqlBudgetExceededException extends RuntimeException {
+
+    public SqlBudgetExceededException(String name, int budget, int actual) {
+        super(name + " 에서 SQL " + actual + "개 실행 (허용 " + budget + "개)");
+    }
+}
@@ -0,0 +1,62 @@
+package data.jpa.springdatajpa.monitor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * HTTP 요청(컨트롤러 핸들러) 단위로 SQL 수를 셈
+ * &#64;ResponseBody 는 핸들러 안에서 응답을 쓰므로 DTO 매핑 중 발생한 지연로딩까지 postHandle 전에 모두 기록됨
+ * postHandle 때는 이미 응답을 썼으므로 여기서는 기록만 하고, fail-on-exceed 는 응답을 쓰기 전에 SqlBudgetResponseAdvice 가 검사
+ * StreamingResponseBody 같은 비동기 핸들러는 첫 dispatch 에서 postHandle/afterCompletion 이 호출되지 않으므로
+ * afterConcurrentHandlingStarted 에서 범위를 닫음 (응답을 쓰는 동안의 SQL 은 다른 스레드라 세지 않음), ASYNC 재dispatch 는 범위를 열지 않음
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlBudgetHandlerInterceptor implements AsyncHandlerInterceptor {
+
+    static final String SCOPE_ATTRIBUTE = SqlBudgetHandlerInterceptor.class.getName() + ".scope";
+
+    private final SqlBudgetMonitor monitor;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod && request.getDispatcherType() != DispatcherType.ASYNC) {
+            String name = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+            request.setAttribute(SCOPE_ATTRIBUTE, SqlScope.open(name));
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        finish(request, handler);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        finish(request, handler);   //핸들러에서 예외가 난 경우 postHandle 이 호출되지 않음
+    }
+
+    //요청 스레드를 돌려주기 전에 닫지 않으면 ThreadLocal 에 남아서 그 스레드의 다음 요청들이 이 범위 아래에 쌓임
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        finish(request, handler);
+    }
+
+    private void finish(HttpServletRequest request, Object handler) {
+        SqlScope scope = (SqlScope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope == null) {
+            return;
+        }
+        request.removeAttribute(SCOPE_ATTRIBUTE);
+        scope.close();
+        SqlBudget budget = ((HandlerMethod) handler).getMethodAnnotation(SqlBudget.class);
+        monitor.report("http", scope, budget == null ? null : budget.value(), false);
+    }
+}
@@ -0,0 +1,73 @@
+package data.jpa.springdatajpa.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 닫힌 SqlScope 의 결과를 메트릭/로그로 남기고 예산(@SqlBudget)을 검사
+ * - sql.statements{type, name}      : 범위당 SQL 수 분포
+ * - sql.n_plus_one{type, name}      : 같은 SQL 이 바인딩 값만 바뀌어 반복된 횟수
+ * - sql.budget.exceeded{type, name} : 예산 초과 횟수
+ */
+@Slf4j
+@Component
+public class SqlBudgetMonitor {
+
+    private final MeterRegistry registry;
+    private final int repeatThreshold;
+    private final boolean failOnExceed;
+
+    public SqlBudgetMonitor(MeterRegistry registry,
+                            @Value("${app.sql-budget.repeat-threshold:3}") int repeatThreshold,
+                            @Value("${app.sql-budget.fail-on-exceed:false}") boolean failOnExceed) {
+        this.registry = registry;
+        this.repeatThreshold = repeatThreshold;
+        this.failOnExceed = failOnExceed;
+    }
+
+    /**
+     * 아직 열려있는 범위가 예산을 넘었으면 fail-on-exceed 일 때 예외 (메트릭/로그는 범위가 닫힐 때 report 에서)
+     * 응답을 쓰기 전에 검사해야 하는 HTTP 요청용 (SqlBudgetResponseAdvice)
+     */
+    public void enforce(SqlScope scope, int budget) {
+        int count = scope.getStatementCount();
+        if (failOnExceed && count > budget) {
+            throw new SqlBudgetExceededException(scope.getName(), budget, count);
+        }
+    }
+
+    /**
+     * @param budget 허용 SQL 수, 없으면 null
+     * @param enforce false 면 fail-on-exceed 여도 예외를 던지지 않음 (이미 예외로 끝난 요청 등)
+     */
+    public void report(String type, SqlScope scope, Integer budget, boolean enforce) {
+        int count = scope.getStatementCount();
+        DistributionSummary.builder("sql.statements")
+                .tag("type", type)
+                .tag("name", scope.getName())
+                .register(registry)
+                .record(count);
+
+        List<String> repeated = scope.findRepeatedStatements(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            Counter.builder("sql.n_plus_one").tag("type", type).tag("name", scope.getName())
+                    .register(registry).increment();
+            log.warn("N+1 의심 [{}] 같은 SQL 이 바인딩 값만 바뀌어 {}번 이상 실행됨: {}", scope.getName(), repeatThreshold, repeated);
+        }
+
+        if (budget != null && count > budget) {
+            Counter.builder("sql.budget.exceeded").tag("type", type).tag("name", scope.getName())
+                    .register(registry).increment();
+            log.warn("SQL 예산 초과 [{}] {}개 실행 (허용 {}개)", scope.getName(), count, budget);
+            if (failOnExceed && enforce) {
+                throw new SqlBudgetExceededException(scope.getName(), budget, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package data.jpa.springdatajpa.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * &#64;SqlBudget 핸들러의 응답 본문을 쓰기 직전에 요청 범위(SqlBudgetHandlerInterceptor)의 SQL 수를 검사
+ * postHandle 에서 던지면 이미 200 으로 본문을 쓴 뒤라 클라이언트는 실패를 알 수 없음
+ * 본문을 직렬화하는 중에 생기는 지연로딩은 이 시점 이후라 세지 못함 (DTO 로 바꿔서 반환해야 하는 이유이기도 함)
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class SqlBudgetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlBudgetMonitor monitor;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(SqlBudget.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(SqlBudgetHandlerInterceptor.SCOPE_ATTRIBUTE) instanceof SqlScope scope) {
+            monitor.enforce(scope, returnType.getMethodAnnotation(SqlBudget.class).value());
+        }
+        return body;
+    }
+}
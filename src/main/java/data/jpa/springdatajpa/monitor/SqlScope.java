@@ -0,0 +1,121 @@
+package data.jpa.springdatajpa.monitor;
+
+import java.util.*;
+
+/**
+ * 현재 스레드에서 실행된 SQL 을 세는 범위 (HTTP 요청 하나, 리포지토리 메서드 호출 하나 등)
+ * 범위는 중첩될 수 있고 SQL 은 열려있는 모든 범위에 기록된다. (요청 범위 안의 리포지토리 범위)
+ * 테스트에서 직접 열어서 쿼리 수를 검증할 때도 사용, 실행된 SQL 자체가 필요하면 recording() 으로 연다. (QueryPlanTest 참고)
+ * <pre>
+ * try (SqlScope scope = SqlScope.open("test")) {
+ *     ...
+ *     assertThat(scope.getStatementCount()).isEqualTo(2);
+ * }
+ * </pre>
+ */
+public final class SqlScope implements AutoCloseable {
+
+    private static final ThreadLocal<SqlScope> CURRENT = new ThreadLocal<>();
+    private static final int MAX_TRACKED_STATEMENTS = 256;    //한 범위에서 구분해서 기억할 SQL 종류 수
+    private static final int MAX_TRACKED_BINDS = 64;          //SQL 하나당 기억할 서로 다른 바인딩 값 수
+
+    private final String name;
+    private final SqlScope parent;
+    private int statementCount;
+    private final Map<String, Set<Integer>> bindsBySql = new HashMap<>();
+    private final List<String> statements;     //recording 범위만, 바인딩 값이 채워진 SQL
+    private boolean closed;
+
+    private SqlScope(String name, SqlScope parent, boolean recording) {
+        this.name = name;
+        this.parent = parent;
+        this.statements = recording ? new ArrayList<>() : null;
+    }
+
+    public static SqlScope open(String name) {
+        return open(name, false);
+    }
+
+    public static SqlScope recording(String name) {
+        return open(name, true);
+    }
+
+    private static SqlScope open(String name, boolean recording) {
+        SqlScope scope = new SqlScope(name, CURRENT.get(), recording);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    //현재 스레드에 열려있는 가장 안쪽 범위, 없으면 null
+    static SqlScope current() {
+        return CURRENT.get();
+    }
+
+    static void record(String sql, String sqlWithValues) {
+        for (SqlScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.add(sql, sqlWithValues);
+        }
+    }
+
+    private void add(String sql, String sqlWithValues) {
+        statementCount++;
+        if (statements != null && statements.size() < MAX_TRACKED_STATEMENTS) {
+            statements.add(sqlWithValues);
+        }
+        Set<Integer> binds = bindsBySql.get(sql);
+        if (binds == null) {
+            if (bindsBySql.size() >= MAX_TRACKED_STATEMENTS) {
+                return;
+            }
+            binds = new HashSet<>();
+            bindsBySql.put(sql, binds);
+        }
+        if (binds.size() < MAX_TRACKED_BINDS) {
+            binds.add(sqlWithValues.hashCode());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public List<String> getStatements() {
+        if (statements == null) {
+            throw new IllegalStateException("SqlScope.recording() 으로 연 범위만 SQL 을 기록합니다: " + name);
+        }
+        return Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * 같은 SQL 이 바인딩 값만 바뀌어서 threshold 번 이상 실행된 경우 -> N+1 의심
+     * (ex. member.getTeam().getName() 을 루프에서 호출해 team 을 하나씩 select)
+     */
+    public List<String> findRepeatedStatements(int threshold) {
+        List<String> repeated = new ArrayList<>();
+        for (Map.Entry<String, Set<Integer>> entry : bindsBySql.entrySet()) {
+            if (entry.getValue().size() >= threshold) {
+                repeated.add(entry.getKey());
+            }
+        }
+        return repeated;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (CURRENT.get() == this) {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package data.jpa.springdatajpa.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 가 감싼 DataSource 에서 SQL 이 실행될 때마다 호출됨 (p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동 등록)
+ * batch 는 addBatch 가 아니라 executeBatch 한번으로 세므로 JDBC batch insert 는 N+1 로 보이지 않음
+ */
+@Component
+public class SqlStatementListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SqlScope.record(statementInformation.getSql(), statementInformation.getSqlWithValues());
+    }
+}
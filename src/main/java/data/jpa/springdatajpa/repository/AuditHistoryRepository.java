@@ -0,0 +1,27 @@
+package data.jpa.springdatajpa.repository;
+
+import data.jpa.springdatajpa.entity.AuditHistory;
+import data.jpa.springdatajpa.entity.AuditHistory.EntityType;
+import data.jpa.springdatajpa.entity.AuditHistory.Operation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+//audit_history 는 AuditHistoryWriter 가 JDBC 로 insert 하므로 여기서는 조회만
+public interface AuditHistoryRepository extends JpaRepository<AuditHistory, Long> {
+
+    //at 시점까지의 마지막 스냅샷 (idx_audit_history_entity 를 거꾸로 읽음)
+    Optional<AuditHistory> findFirstByEntityTypeAndEntityIdAndChangedAtLessThanEqualOrderByCommitSeqDesc(
+            EntityType entityType, Long entityId, LocalDateTime at);
+
+    //순서는 id(insert 순서)가 아니라 commitSeq(커밋 순서)
+    @Query("select h from AuditHistory h where h.operation = :operation and h.commitSeq > :afterSeq and h.changedAt <= :at order by h.commitSeq")
+    List<AuditHistory> findOperationsAfter(@Param("operation") Operation operation, @Param("afterSeq") long afterSeq,
+                                           @Param("at") LocalDateTime at);
+
+    List<AuditHistory> findByEntityTypeAndEntityIdOrderByCommitSeqAsc(EntityType entityType, Long entityId);
+}
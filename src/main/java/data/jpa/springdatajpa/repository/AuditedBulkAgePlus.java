@@ -0,0 +1,14 @@
+package data.jpa.springdatajpa.repository;
+
+import java.lang.annotation.*;
+
+/**
+ * "age >= :age (and member_id between :fromId and :toId) 이면 age + 1" 벌크 쿼리 메서드 표시
+ * 벌크 쿼리는 hibernate 이벤트가 없으므로 AuditedBulkInterceptor 가 같은 트렌젝션에 BULK_AGE_PLUS 이력을 남김
+ * 파라미터는 @Param 이름(age, fromId, toId)으로 찾음
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AuditedBulkAgePlus {
+}
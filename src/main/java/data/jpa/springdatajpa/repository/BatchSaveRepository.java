@@ -0,0 +1,16 @@
+package data.jpa.springdatajpa.repository;
+
+import java.util.List;
+
+/**
+ * 여러 리포지토리에서 같이 쓰는 사용자 정의 인터페이스(fragment)
+ * 구현체는 "인터페이스 이름" + "Impl" 인 BatchSaveRepositoryImpl 을 data jpa 가 찾아서 붙여준다.
+ */
+public interface BatchSaveRepository<T> {
+
+    /**
+     * JDBC batch 로 insert/update 를 모아서 보내고, 청크 단위로 flush/clear 해서 영속성 컨텍스트가 커지지 않게 함
+     * ‼️ clear 때문에 호출 전에 영속 상태였던 엔티티와 반환된 엔티티는 모두 준영속 상태가 된다.
+     */
+    <S extends T> List<S> saveAllInChunks(Iterable<S> entities);
+}
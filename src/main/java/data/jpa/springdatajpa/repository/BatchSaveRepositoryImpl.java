@@ -0,0 +1,45 @@
+package data.jpa.springdatajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchSaveRepositoryImpl<T> implements BatchSaveRepository<T> {
+
+    private final EntityManager em;
+    private final int chunkSize;
+
+    //청크 크기는 JDBC batch_size 와 맞춰야 청크 하나가 batch 한번(또는 몇번)으로 나감
+    public BatchSaveRepositoryImpl(EntityManager em,
+                                   @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int chunkSize) {
+        this.em = em;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    @Transactional
+    public <S extends T> List<S> saveAllInChunks(Iterable<S> entities) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<S> result = new ArrayList<>();
+        int count = 0;
+        for (S entity : entities) {
+            if (util.getIdentifier(entity) == null) {
+                em.persist(entity);     //persist 는 insert 를 바로 보내지 않고 flush 때 batch 로 모아서 보냄
+                result.add(entity);
+            } else {
+                result.add(em.merge(entity));
+            }
+            if (++count % chunkSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return result;
+    }
+}
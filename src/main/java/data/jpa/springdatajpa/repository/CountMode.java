@@ -0,0 +1,12 @@
+package data.jpa.springdatajpa.repository;
+
+/**
+ * Page 를 만들 때 전체 갯수(totalElements)를 어떻게 구할지
+ * 어떤 모드든 마지막 페이지(다음 row 가 없는 경우)는 가져온 row 수로 전체 갯수를 알 수 있으므로 count 쿼리를 보내지 않음
+ */
+public enum CountMode {
+    EXACT,      //count 쿼리로 정확한 전체 갯수
+    CACHED,     //같은 쿼리 + 파라미터의 count 결과를 TTL 동안 재사용
+    ESTIMATED,  //테이블 통계(information_schema.tables.table_rows)의 추정치, 조건이 있는 쿼리라면 상한값
+    SKIP        //count 쿼리를 보내지 않음, 마지막 페이지가 아니면 지금까지 본 row + 1 (다음 페이지가 있다는 것만 보장, 무한 스크롤용)
+}
@@ -1,8 +1,15 @@
 package data.jpa.springdatajpa.repository;
 
 import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.service.AuditHistoryListener;
+import data.jpa.springdatajpa.service.BulkUpdateResult;
+import data.jpa.springdatajpa.service.ChunkedBulkUpdateExecutor;
+import data.jpa.springdatajpa.service.IdRange;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,6 +20,10 @@ public class MemberJPARepository {
 
     @PersistenceContext
     private EntityManager em;
+    @Autowired
+    private ObjectProvider<AuditHistoryListener> auditHistoryListener;     //app.audit-history.enabled=false 면 없음
+    @Autowired
+    private ChunkedBulkUpdateExecutor chunkedBulkUpdateExecutor;
 
     public Member save(Member member) {
         em.persist(member);
@@ -65,6 +76,24 @@ public class MemberJPARepository {
                 .getResultList();
     }
 
+    //keyset 페이징 - 이전 페이지의 마지막 (username, id) 보다 뒤에 있는 row 부터 limit 만큼, offset 을 쓰지 않음
+    public List<Member> findByPageAfter(int age, String lastUsername, Long lastId, int limit) {
+        if (lastUsername == null) {
+            return em.createQuery("select m from Member m where m.age = :age order by m.username desc, m.id desc", Member.class)
+                    .setParameter("age", age)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        return em.createQuery("select m from Member m where m.age = :age" +
+                        " and (m.username < :username or (m.username = :username and m.id < :id))" +
+                        " order by m.username desc, m.id desc", Member.class)
+                .setParameter("age", age)
+                .setParameter("username", lastUsername)
+                .setParameter("id", lastId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     public long totalCount(int age) {
         return em.createQuery("select count(m) from Member m where m.age = :age ", Long.class)
                 .setParameter("age", age)
@@ -72,9 +101,41 @@ public class MemberJPARepository {
     }
 
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age =  m.age + 1 where m.age >= :age")
+        int count = em.createQuery("update versioned Member m set m.age =  m.age + 1 where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
+        recordBulkAgePlus(age, null, null);
+        return count;
+    }
+
+    public int bulkAgePlus(int age, long fromId, long toId) {
+        int count = em.createQuery("update versioned Member m set m.age =  m.age + 1 where m.age >= :age and m.id between :fromId and :toId")
+                .setParameter("age", age)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+        recordBulkAgePlus(age, fromId, toId);
+        em.clear();     //벌크 연산은 영속성 컨텍스트를 거치지 않으므로 남아있는 엔티티는 오래된 값
+        return count;
+    }
+
+    //bulkAgePlus 를 member_id 범위 청크로 나눠서 청크마다 커밋 (MemberBulkService 와 같음)
+    //실패하면 ChunkedBulkUpdateException.getRemaining() 을 청크 실행기로 넘겨서 재개
+    public BulkUpdateResult bulkAgePlusInChunks(int age, int chunkSize, int parallelism) {
+        Object[] ids = em.createQuery("select min(m.id), max(m.id) from Member m", Object[].class).getSingleResult();
+        if (ids[0] == null) {
+            return new BulkUpdateResult(0, 0);
+        }
+        return chunkedBulkUpdateExecutor.execute(IdRange.split((Long) ids[0], (Long) ids[1], chunkSize), parallelism,
+                (fromId, toId) -> bulkAgePlus(age, fromId, toId));
+    }
+
+    //벌크 쿼리는 hibernate 이벤트가 없으므로 변경 이력에 직접 남김 (MemberRepository 는 @AuditedBulkAgePlus)
+    private void recordBulkAgePlus(int age, Long fromId, Long toId) {
+        AuditHistoryListener listener = auditHistoryListener.getIfAvailable();
+        if (listener != null) {
+            listener.recordBulkAgePlus(em.unwrap(SessionImplementor.class), age, fromId, toId);
+        }
     }
 
 }
@@ -1,8 +0,0 @@
-package data.jpa.springdatajpa.repository;
-
-public interface MemberProjection {
-    Long getId();
-    String getUsername();
-    String getTeamName();
-
-}
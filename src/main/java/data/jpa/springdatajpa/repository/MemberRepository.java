@@ -1,66 +1,145 @@
 package data.jpa.springdatajpa.repository;
 
 import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.dto.MemberRow;
 import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.monitor.SqlBudget;
 import jakarta.persistence.Entity;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
+//이 인터페이스에 선언한 조회 메서드(메서드 이름 쿼리, @Query, default 메서드)의 기본 트렌젝션은 readOnly -> 복제 DB 에서 읽음
+//save/delete 같은 JpaRepository 메서드는 SimpleJpaRepository 의 설정을 따르고, 쓰기/잠금 쿼리는 메서드에 @Transactional 로 따로 지정
 @Repository
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor {
+@Transactional(readOnly = true)
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, BatchSaveRepository<Member>,
+        PageCountRepository, MemberSpecRepository, JpaSpecificationExecutor {
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
     List<Member> findTop3HelloBy();
 
-    //    @Query(name = "Member.findByUsername") data jpa를 사용한 네임드쿼리 사용법
-//    사실 없어도 JpaRepository 가 인터페이스 메서드를 만들기 전에 해당 엔티티의 네임드 쿼리를 찾음
-    List<Member> findByUsername(@Param("username") String username); //@Param 은 해당 네임드 쿼리에 파라미터가 있을 때 넣어준다.
+    //findByUsername / findMemberByUsername / findOptionalByUsername 은 MemberRepositoryImpl (MemberUsernameIndex 로 id 를 찾고 id 로 로딩)
 
 
     //자주쓰이는 기능 || 로딩시점에 해당 쿼리를 파싱하므로 컴파일 타임에 잘못된 문법을 확인할 수 있다.
     @Query("select m from Member m where m.username = :username and m.age >= :age")
     List<Member> findQueryCustom(@Param("username") String username, @Param("age") int age);
 
+    //hibernate 쿼리 캐시, 같은 쿼리 + 같은 파라미터면 SQL 을 다시 실행하지 않고 캐시된 결과(JDBC row)로 만들어줌
+    //Member/Team 테이블에 insert, update, delete(변경감지, save, delete, bulkAgePlus 같은 벌크 쿼리 포함)가 커밋되면 hibernate 가 알아서 무효화
+    //엔티티가 아니라 row 값을 캐시하므로 clearAutomatically 로 영속성 컨텍스트가 비워져도 안전함
+    //크기/TTL 은 application.conf 의 default-query-results-region
+    @QueryHints(value = {@QueryHint(name = "org.hibernate.cacheable", value = "true")})
     @Query("select m.username from Member m")
     List<String> getUsernameList();
 
+    @QueryHints(value = {@QueryHint(name = "org.hibernate.cacheable", value = "true")})
     @Query("select new data.jpa.springdatajpa.dto.MemberDTO( m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDTO> findDTOData();
 
-    @Query("select m from Member m where m.username in :names")
-    List<Member> collectionParam(@Param("names") Collection<String> names);
+    //collectionParam(Collection<String> names) 는 MemberRepositoryImpl (IN 목록을 청크 + 2의 거듭제곱 크기로)
 
     List<Member> findListByUsername(String username);   //컬렉션
 
-    // || Collection 은 절대 null 을 반환하지 않음, 값이 없으면 빈 객체를 반환 ,‼️null 처리 x
-    Member findMemberByUsername(String username);   //단건 조회
-
-    // || 객체를 반환하는 메서드의 경우 null을 반렬
-    Optional<Member> findOptionalByUsername(String username);   //단건 조회 Optional
-
     //    join 문이 많아지거나 특수한 경우 전체 갯수를 조회해오는 쿼리를 별도로 넣어줄 수 있음
 //    @Query(value = "select m from Member m", countQuery = "select count(m) from Member m")
     Page<Member> findByAge(int age, Pageable pageable);
 
     Slice<Member> findSliceByAge(int age, Pageable pageable);
 
+    long countByAge(int age);
+
+    Slice<Member> findSliceBy(Pageable pageable);
+
+    //  findSliceByAge 를 처음부터 끝까지 훑을 때 (MemberSliceScanner), 다음 slice 는 offset 대신 마지막으로 읽은 (username, member_id) 다음부터
+    //  idx_member_age_username_id 순서 그대로 정렬해야 인덱스를 따라 seek, Pageable 은 limit 용 (List 반환이라 count 쿼리 없음)
+    @Query("select new data.jpa.springdatajpa.dto.MemberDTO(m.id, m.username, t.name) from Member m left join m.team t " +
+            "where m.age = :age order by m.username, m.id")
+    List<MemberDTO> findDTOByAgeFirst(@Param("age") int age, Pageable pageable);
+
+    @Query("select new data.jpa.springdatajpa.dto.MemberDTO(m.id, m.username, t.name) from Member m left join m.team t " +
+            "where m.age = :age and (m.username > :username or (m.username = :username and m.id > :id)) order by m.username, m.id")
+    List<MemberDTO> findDTOByAgeAfter(@Param("age") int age, @Param("username") String username, @Param("id") Long id, Pageable pageable);
+
+    //username 이 null 인 행은 맨 앞에 정렬되므로 (MySQL) 남은 null 행 + null 이 아닌 전부
+    @Query("select new data.jpa.springdatajpa.dto.MemberDTO(m.id, m.username, t.name) from Member m left join m.team t " +
+            "where m.age = :age and ((m.username is null and m.id > :id) or m.username is not null) order by m.username, m.id")
+    List<MemberDTO> findDTOByAgeAfterNullUsername(@Param("age") int age, @Param("id") Long id, Pageable pageable);
+
+    //after == null 이면 첫 slice
+    default List<MemberDTO> findDTOSliceByAge(int age, MemberDTO after, int size) {
+        Pageable limit = PageRequest.of(0, size);
+        if (after == null) {
+            return findDTOByAgeFirst(age, limit);
+        }
+        if (after.getUsername() == null) {
+            return findDTOByAgeAfterNullUsername(age, after.getId(), limit);
+        }
+        return findDTOByAgeAfter(age, after.getUsername(), after.getId(), limit);
+    }
+
+    //  큰 테이블에서는 count(*) 가 페이지 조회보다 비쌀 수 있음 -> Slice 로 내용만 가져오고 전체 갯수는 CountMode 로 결정
+    default Page<Member> findByAge(int age, Pageable pageable, CountMode countMode) {
+        return toPage(findSliceByAge(age, pageable), countMode, "member", () -> countByAge(age), "findByAge", age);
+    }
+
+    default Page<Member> findAll(Pageable pageable, CountMode countMode) {
+        return toPage(findSliceBy(pageable), countMode, "member", this::count, "findAll");
+    }
+
+    //  목록 화면용, 엔티티 대신 DTO 로 바로 조회 -> 영속성 컨텍스트에 올라가지 않고(스냅샷/변경감지 없음) team 지연로딩도 없음
+    //  정렬/페이징은 그대로 Pageable 로 (sort=username 이면 order by m.username)
+    @Query("select new data.jpa.springdatajpa.dto.MemberDTO(m.id, m.username, t.name) from Member m left join m.team t")
+    Slice<MemberDTO> findDTOSliceBy(Pageable pageable);
+
+    default Page<MemberDTO> findAllDTO(Pageable pageable, CountMode countMode) {
+        return toPage(findDTOSliceBy(pageable), countMode, "member", this::count, "findAll");   //갯수는 findAll 과 같으므로 캐시도 같이 씀
+    }
+
+    //  offset 페이징은 앞 페이지의 row 를 모두 읽고 버리기 때문에 뒤로 갈수록 느려짐
+    //  keyset(seek) 페이징은 마지막으로 본 (username, member_id) 다음부터 바로 찾아가므로 몇번째 페이지든 비용이 같다.
+    //  ScrollPosition.keyset() 으로 시작, Window.positionAt() 으로 다음 위치를 얻음 (정렬에 id 가 포함되어 있어야 유일한 위치가 됨)
+    Window<Member> findByAgeOrderByUsernameAscIdAsc(int age, ScrollPosition position, Limit limit);
+
+    Window<Member> findAllByOrderByUsernameAscIdAsc(ScrollPosition position, Limit limit);
+
 
     //    @Modifying  //이 어노테이션이 있어야 getResultList 같은 결과로 반환하는 것이 아닌 executeUpdate()와 같은 결과를 리턴
+    @Transactional  //인터페이스의 기본 트렌젝션은 readOnly(복제 DB) 이므로 쓰기 쿼리는 readOnly = false 로 원본 DB 에서 실행
     @Modifying(clearAutomatically = true)   // 해당 옵션이 true 일 경우 해당쿼리가 실행된 후 entityManager.clear() 를 자동으로 해줌
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    @AuditedBulkAgePlus //변경 이력(AuditHistory)에 벌크 조건을 남김
+    @Query("update versioned Member m set m.age = m.age + 1 where m.age >= :age") //versioned : 버전도 올려서 이전에 읽은 엔티티의 낙관적 락이 실패하도록
     // JPQL 이 사용될 경우 자동적으로 엔티티 flush()를 해버리고 실행됨
     int bulkAgePlus(@Param("age") int age);
 
+    //bulkAgePlus 를 member_id 범위로 잘라서 실행 -> 한번에 lock 을 잡는 row 수가 청크 크기로 제한됨 (ChunkedBulkUpdateExecutor 참고)
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @AuditedBulkAgePlus
+    @Query("update versioned Member m set m.age = m.age + 1 where m.age >= :age and m.id between :fromId and :toId")
+    int bulkAgePlusInRange(@Param("age") int age, @Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("select min(m.id) from Member m")
+    Long findMinId();
+
+    @Query("select max(m.id) from Member m")
+    Long findMaxId();
+
+    @SqlBudget(1)   //fetch join / EntityGraph 는 team 까지 쿼리 한번
     @Query("select m from Member m left join fetch m.team")
     List<Member> findMemberFetchJoin();
 
@@ -70,6 +149,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
         // team엔티티 정보도 같이 가져오고 싶으면 EntityGraph 어노테이션을 넣어주면 됨
     List<Member> findAll();
 
+    @SqlBudget(1)
     @EntityGraph(attributePaths = {"team"}) // jpql도 사용하면서 관련 객체도 받을려면 EntityGraph 어노테이션을 넣어주면 됨
     @Query("select m from Member m")
     List<Member> findMemberEntityGraph();
@@ -87,16 +167,44 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     Member findReadOnlyValueByUsername(String username);
 
     //데이터베이스에 쿼리에 트렌젝션 처리시 lock을 거는 것을 이야기하는 것 같음..
+    @Transactional  //select ... for update 는 원본 DB 에서 실행되어야 하므로 readOnly 트렌젝션(복제 DB)을 쓰지 않음
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
+    //작업 큐처럼 "아무거나 처리 안 된 것" 을 가져갈 때, 다른 트렌젝션이 잠근 행은 기다리지 않고 건너뜀 (select ... for update skip locked)
+    //lock.timeout -2 = hibernate 의 LockOptions.SKIP_LOCKED, 잠금은 호출한 쪽 트렌젝션이 끝날 때까지 유지되므로 트렌젝션 안에서 호출
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(value = {@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2")})
+    @Query("select m from Member m where m.age >= :age order by m.id")
+    List<Member> claimByAge(@Param("age") int age, Pageable pageable);
+
+    //List 로 받으면 전체 결과가 메모리에 올라가지만 Stream 은 한 row 씩 꺼내 씀 (반드시 트렌젝션 안에서 쓰고 close 해야함)
+    //fetchSize + useCursorFetch 로 MySQL 서버 커서에서 1000건씩 가져오고, DTO 로 바로 받으므로 영속성 컨텍스트에 쌓이지 않음
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheable", value = "false")
+    })
+    @Query("select new data.jpa.springdatajpa.dto.MemberDTO(m.id, m.username, t.name) from Member m left join m.team t")
+    Stream<MemberDTO> streamAllDTO();
+
+    //MemberUsernameIndex 빌드용, 엔티티 대신 (id, username) 만 스트리밍
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select m.id, m.username from Member m")
+    Stream<Object[]> streamIdAndUsername();
+
     @Query(value = "select * from member where username=?", nativeQuery = true)
     Member findByNativeQuery(String username);
 
 
-    @Query(value = "select m.member_id as id, m.username, t.name as teamName " +
-            "from member m left join team t",
-            countQuery = "select count(*) from member",
-            nativeQuery = true)
-    Page<MemberProjection> findByNativeProjection(Pageable pageable);
+    //findByNativeProjection(Pageable) / findSliceByNativeProjection 은 MemberRepositoryImpl (인터페이스 프로젝션 대신 record 로 매핑)
+
+    //count 쿼리가 조건 없는 count(*) 이므로 ESTIMATED 의 테이블 통계가 거의 정확함
+    default Page<MemberRow> findByNativeProjection(Pageable pageable, CountMode countMode) {
+        return toPage(findSliceByNativeProjection(pageable), countMode, "member", this::count, "findByNativeProjection");
+    }
 }
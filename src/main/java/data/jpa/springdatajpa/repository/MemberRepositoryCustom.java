@@ -1,10 +1,36 @@
 package data.jpa.springdatajpa.repository;
 
 
+import data.jpa.springdatajpa.dto.MemberRow;
 import data.jpa.springdatajpa.entity.Member;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    //MultiGetExecutor 로 청크 + 2의 거듭제곱 크기 IN 목록, 결과는 입력 순서대로 (중복 키는 한번만)
+    List<Member> findAllById(Iterable<Long> ids);
+
+    List<Member> collectionParam(Collection<String> names);
+
+    //MemberUsernameIndex 가 준비됐으면 username -> id 를 인덱스에서 찾고 pk in 쿼리 한번으로 로딩 (쿼리 캐시 사용)
+    //인덱스에 없거나 쓰기 트렌젝션 안이면 (아직 커밋되지 않은 변경은 인덱스에 없음) 기존처럼 username 쿼리로 조회
+    List<Member> findByUsername(String username);
+
+    // || Collection 은 절대 null 을 반환하지 않음, 값이 없으면 빈 객체를 반환 ,‼️null 처리 x
+    Member findMemberByUsername(String username);   //단건 조회
+
+    // || 객체를 반환하는 메서드의 경우 null을 반렬
+    Optional<Member> findOptionalByUsername(String username);   //단건 조회 Optional
+
+    //네이티브 쿼리 + ProjectionMapper, 정렬은 id / username / teamName 만 가능
+    Page<MemberRow> findByNativeProjection(Pageable pageable);
+
+    Slice<MemberRow> findSliceByNativeProjection(Pageable pageable);
 }
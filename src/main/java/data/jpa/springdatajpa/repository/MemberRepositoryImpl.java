@@ -1,10 +1,28 @@
 package data.jpa.springdatajpa.repository;
 
+import data.jpa.springdatajpa.dto.MemberRow;
 import data.jpa.springdatajpa.entity.Member;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
 
 
 /**
@@ -14,7 +32,17 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final String MEMBER_ROW_SQL = "select m.member_id as id, m.username as username, t.name as teamName " +
+            "from member m left join team t on t.team_id = m.team_id";
+    //Sort 속성 -> 컬럼, 네이티브 쿼리라 정렬 값을 그대로 SQL 에 붙이지 않고 아는 속성만 허용
+    private static final Map<String, String> MEMBER_ROW_COLUMNS = Map.of(
+            "id", "m.member_id",
+            "username", "m.username",
+            "teamName", "t.name");
+
     private final EntityManager em;
+    private final MultiGetExecutor multiGetExecutor;
+    private final ObjectProvider<MemberUsernameIndex> memberUsernameIndex;  //인덱스가 MemberRepository 를 쓰므로 호출할 때 꺼냄
 
     @Override
     public List<Member> findMemberCustom() {
@@ -22,4 +50,135 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .getResultList() ;
     }
 
+    //JpaRepository 의 findAllById 대신 사용됨 (fragment 가 기본 구현보다 우선)
+    @Override
+    public List<Member> findAllById(Iterable<Long> ids) {
+        return multiGetExecutor.getAll(ids,
+                chunk -> em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                        .setParameter("ids", chunk)
+                        .getResultList(),
+                Member::getId);
+    }
+
+    @Override
+    public List<Member> collectionParam(Collection<String> names) {
+        return multiGetExecutor.getAll(names,
+                chunk -> em.createQuery("select m from Member m where m.username in :names", Member.class)
+                        .setParameter("names", chunk)
+                        .getResultList(),
+                Member::getUsername);
+    }
+
+    @Override
+    public List<Member> findByUsername(String username) {
+        List<Member> indexed = findByUsernameIndex(username);
+        if (indexed != null) {
+            return indexed;
+        }
+        return em.createNamedQuery("Member.findByUsername", Member.class)
+                .setParameter("username", username)
+                .setHint(AvailableHints.HINT_CACHEABLE, true)   //쿼리 캐시 사용, MemberRepository.getUsernameList 참고
+                .getResultList();
+    }
+
+    @Override
+    public Member findMemberByUsername(String username) {
+        List<Member> members = findByUsernameIndex(username);
+        if (members == null) {
+            //data jpa 메서드 이름 쿼리처럼 null 이면 is null
+            TypedQuery<Member> query = username == null
+                    ? em.createQuery("select m from Member m where m.username is null", Member.class)
+                    : em.createQuery("select m from Member m where m.username = :username", Member.class)
+                    .setParameter("username", username);
+            members = query.setMaxResults(2).getResultList();
+        }
+        if (members.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, members.size());
+        }
+        return members.isEmpty() ? null : members.get(0);
+    }
+
+    @Override
+    public Optional<Member> findOptionalByUsername(String username) {
+        return Optional.ofNullable(findMemberByUsername(username));
+    }
+
+    //인덱스로 찾을 수 있으면 결과, 아니면 null (기존 username 쿼리로)
+    //트렌젝션 밖이나 readOnly 트렌젝션이면 아직 커밋되지 않은 변경이 없으므로 커밋 기준인 인덱스와 DB 결과가 같음
+    //인덱스는 이 인스턴스의 리스너가 본 변경만 알고 있음 (JDBC 로 넣은 행, 다른 인스턴스의 변경은 모름) -> 못 찾으면 DB 로
+    private List<Member> findByUsernameIndex(String username) {
+        MemberUsernameIndex index = memberUsernameIndex.getIfAvailable();
+        if (username == null || index == null || !index.isReady()
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        long[] ids = index.findIds(username);
+        if (ids.length == 0) {
+            return null;
+        }
+        List<Long> keys = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            keys.add(id);
+        }
+        //id 가 여러개여도 pk in 쿼리 한번, 쿼리 캐시를 쓰므로 member 가 바뀌지 않았으면 SQL 없음 (findAllById 와 같은 IN 목록 크기)
+        List<Member> loaded = em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", MultiGetExecutor.padded(keys))
+                .setHint(AvailableHints.HINT_CACHEABLE, true)
+                .getResultList();
+        //인덱스는 해시로만 비교하고, 리스너를 거치지 않은 삭제/변경이 있을 수 있으므로 한번 더 확인
+        List<Member> members = new ArrayList<>(loaded.size());
+        for (Member member : loaded) {
+            if (username.equals(member.getUsername())) {
+                members.add(member);
+            }
+        }
+        return members.isEmpty() ? null : members;
+    }
+
+    @Override
+    public Page<MemberRow> findByNativeProjection(Pageable pageable) {
+        List<MemberRow> content = memberRows(pageable, pageable.isPaged() ? pageable.getPageSize() : 0);
+        //첫 페이지가 다 안 찼거나 마지막 페이지면 count 쿼리 생략
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> ((Number) em.createNativeQuery("select count(*) from member").getSingleResult()).longValue());
+    }
+
+    @Override
+    public Slice<MemberRow> findSliceByNativeProjection(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(memberRows(pageable, 0), pageable, false);
+        }
+        List<MemberRow> content = memberRows(pageable, pageable.getPageSize() + 1);  //한 건 더 읽어서 다음 페이지 여부 확인
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MemberRow> memberRows(Pageable pageable, int limit) {
+        NativeQuery<MemberRow> query = em.createNativeQuery(MEMBER_ROW_SQL + orderBy(pageable.getSort()))
+                .unwrap(NativeQuery.class)
+                .setTupleTransformer(ProjectionMapper.of(MemberRow.class));
+        if (limit > 0) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(limit);
+        }
+        return query.getResultList();
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        StringJoiner orders = new StringJoiner(", ", " order by ", "");
+        for (Sort.Order order : sort) {
+            String column = MEMBER_ROW_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("정렬할 수 없는 속성입니다: " + order.getProperty());
+            }
+            orders.add(column + (order.isAscending() ? " asc" : " desc"));
+        }
+        return orders.toString();
+    }
+
 }
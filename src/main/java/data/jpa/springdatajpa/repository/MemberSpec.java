@@ -6,20 +6,101 @@ import jakarta.persistence.criteria.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 
-public class MemberSpec {
-    public static Specification<Member> teamName(final String teamName) {
-        return (root, query, criteriaBuilder) -> {
-            if (StringUtils.isEmpty(teamName)) {
-                return null;
-            }
-            Join<Member, Team> t = root.join("team", JoinType.INNER);//회원과 조
-            return criteriaBuilder.equal(t.get("name"), teamName);
-        };
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 회원 검색 조건, 람다 대신 (조건 종류, 값) 목록으로 들고 있음
+ * - Specification 이므로 findAll(Specification) 에 그대로 넘길 수 있음 (호출마다 Criteria 를 새로 만듦)
+ * - findAll(MemberSpec) 으로 넘기면 조건 종류의 조합(getShape)마다 JPQL 을 한번만 만들고 값만 바인딩 (MemberSpecRepositoryImpl)
+ * MemberSpec 끼리 and 하면 MemberSpec 이 되고, 다른 Specification 과 and 하면 일반 Specification 이 됨
+ */
+public final class MemberSpec implements Specification<Member> {
+
+    public enum Field {
+        TEAM_NAME("t.name"),
+        USERNAME("m.username");
+
+        private final String path;     //JPQL 에서의 경로 (m = Member, t = join 한 Team)
+
+        Field(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    public record Condition(Field field, Object value) {
+    }
+
+    private static final MemberSpec EMPTY = new MemberSpec(List.of());
+
+    private final List<Condition> conditions;
+
+    private MemberSpec(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    public static MemberSpec teamName(final String teamName) {
+        if (StringUtils.isEmpty(teamName)) {    //조건 없음
+            return EMPTY;
+        }
+        return new MemberSpec(List.of(new Condition(Field.TEAM_NAME, teamName)));
     }
 
-    public static Specification<Member> username(final String username) {
-        return (Specification<Member>) (root, query, builder) ->
-                builder.equal(root.get("username"), username);
+    public static MemberSpec username(final String username) {
+        return new MemberSpec(List.of(new Condition(Field.USERNAME, username)));
     }
 
+    public MemberSpec and(MemberSpec other) {
+        if (other.conditions.isEmpty()) {
+            return this;
+        }
+        if (conditions.isEmpty()) {
+            return other;
+        }
+        List<Condition> merged = new ArrayList<>(conditions.size() + other.conditions.size());
+        merged.addAll(conditions);
+        merged.addAll(other.conditions);
+        return new MemberSpec(Collections.unmodifiableList(merged));
+    }
+
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * 값을 뺀 조건 종류의 순서, 같은 shape 이면 같은 JPQL 을 씀
+     */
+    public List<Field> getShape() {
+        List<Field> shape = new ArrayList<>(conditions.size());
+        for (Condition condition : conditions) {
+            shape.add(condition.field());
+        }
+        return shape;
+    }
+
+    @Override
+    public Predicate toPredicate(Root<Member> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        if (conditions.isEmpty()) {
+            return null;
+        }
+        Join<Member, Team> t = null;
+        List<Predicate> predicates = new ArrayList<>(conditions.size());
+        for (Condition condition : conditions) {
+            switch (condition.field()) {
+                case TEAM_NAME -> {
+                    if (t == null) {
+                        t = root.join("team", JoinType.INNER);//회원과 조
+                    }
+                    predicates.add(criteriaBuilder.equal(t.get("name"), condition.value()));
+                }
+                case USERNAME -> predicates.add(criteriaBuilder.equal(root.get("username"), condition.value()));
+            }
+        }
+        return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+    }
 }
@@ -0,0 +1,17 @@
+package data.jpa.springdatajpa.repository;
+
+import data.jpa.springdatajpa.entity.Member;
+
+import java.util.List;
+
+/**
+ * MemberSpec 조합을 미리 만들어둔 JPQL 로 실행하는 fragment
+ * findAll(Specification) 은 호출마다 Criteria 트리 생성 -> SQL 변환을 반복하지만
+ * 이쪽은 조건 종류의 조합별로 JPQL 을 한번 만들고, 같은 JPQL 은 hibernate 의 쿼리 plan 캐시에서 파싱/SQL 변환 결과를 재사용
+ */
+public interface MemberSpecRepository {
+
+    List<Member> findAll(MemberSpec spec);
+
+    long count(MemberSpec spec);
+}
@@ -0,0 +1,63 @@
+package data.jpa.springdatajpa.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import data.jpa.springdatajpa.entity.Member;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.List;
+
+public class MemberSpecRepositoryImpl implements MemberSpecRepository {
+
+    private final EntityManager em;
+    private final Cache<List<MemberSpec.Field>, CompiledSpec> compiled;
+
+    public MemberSpecRepositoryImpl(EntityManager em,
+                                    @Value("${app.member-spec.cache-size:1000}") long maximumSize) {
+        this.em = em;
+        this.compiled = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @Override
+    public List<Member> findAll(MemberSpec spec) {
+        CompiledSpec plan = compile(spec);
+        return bind(em.createQuery(plan.select(), Member.class), spec).getResultList();
+    }
+
+    @Override
+    public long count(MemberSpec spec) {
+        CompiledSpec plan = compile(spec);
+        return bind(em.createQuery(plan.count(), Long.class), spec).getSingleResult();
+    }
+
+    private CompiledSpec compile(MemberSpec spec) {
+        return compiled.get(spec.getShape(), CompiledSpec::of);
+    }
+
+    //파라미터 이름은 조건 순서대로 p0, p1 ...
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, MemberSpec spec) {
+        List<MemberSpec.Condition> conditions = spec.getConditions();
+        for (int i = 0; i < conditions.size(); i++) {
+            query.setParameter("p" + i, conditions.get(i).value());
+        }
+        return query;
+    }
+
+    record CompiledSpec(String select, String count) {
+
+        static CompiledSpec of(List<MemberSpec.Field> shape) {
+            StringBuilder from = new StringBuilder(" from Member m");
+            if (shape.contains(MemberSpec.Field.TEAM_NAME)) {
+                from.append(" join m.team t");
+            }
+            for (int i = 0; i < shape.size(); i++) {
+                from.append(i == 0 ? " where " : " and ").append(shape.get(i).getPath()).append(" = :p").append(i);
+            }
+            return new CompiledSpec("select m" + from, "select count(m)" + from);
+        }
+    }
+}
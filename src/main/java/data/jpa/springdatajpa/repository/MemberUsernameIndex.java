@@ -0,0 +1,325 @@
+package data.jpa.springdatajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * username -> member_id 메모리 인덱스, username 조건 쿼리 대신 pk 로 찾을 수 있게 함
+ * - 시작할 때 member 테이블을 스트리밍으로 읽어서 만들고 (ApplicationReadyEvent 후 백그라운드), 이후에는
+ *   MemberUsernameIndexListener 가 커밋된 insert/update/delete 를 반영
+ * - username 은 유일하지 않으므로 같은 username 에 여러 id 가 있을 수 있음
+ * - 키는 문자열 대신 username 의 64bit 해시 + 32bit String.hashCode() 로 구분 (사실상 충돌 없음),
+ *   long[]/int[] 배열 3개로 된 open addressing 테이블이라 키가 수천만개여도 객체가 생기지 않아 GC 부담이 없음 (키당 약 27byte)
+ * - 벌크 JPQL/JDBC 로 username 을 바꾸거나 지우는 경우는 리스너를 거치지 않으므로 put/remove/rebuild 를 직접 호출해야 함
+ *   (bulkAgePlus 같은 age 벌크 업데이트는 username 을 바꾸지 않아 영향 없음)
+ * 빌드 전(isReady() == false)에는 조회 결과를 믿을 수 없으므로 호출하는 쪽이 DB 로 조회해야 함
+ * 빌드 후에도 이 인스턴스가 본 변경만 알고 있으므로 (JDBC 로 넣은 행, 다른 인스턴스의 변경) 없다고 나오면 DB 로 다시 확인해야 함
+ * MemberRepository 의 findByUsername / findMemberByUsername / findOptionalByUsername 이 사용 (MemberRepositoryImpl)
+ */
+@Slf4j
+@Component
+public class MemberUsernameIndex {
+
+    private static final long EMPTY = 0;        //member_id 는 시퀀스라 0 이하가 없음
+    private static final long REMOVED = -1;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate primary;
+    private final boolean enabled;
+    private final int initialCapacity;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table;
+    private volatile boolean ready;
+    private List<Consumer<Table>> pendingDuringBuild;   //빌드 중에 커밋된 변경, 빌드가 끝나면 새 테이블에 다시 적용
+
+    public MemberUsernameIndex(MemberRepository memberRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.username-index.enabled:true}") boolean enabled,
+                               @Value("${app.username-index.initial-capacity:1024}") int initialCapacity) {
+        this.memberRepository = memberRepository;
+        //readOnly 트렌젝션은 복제 DB 로 가므로 (DataSourceRoutingConfig) 원본에서 읽음, 인덱스에 반영되는 변경도 원본에 커밋된 것
+        //복제 DB 는 지연이 있어서 빌드 중에 커밋된 행이 빠지거나, 복제 DB 에 테이블이 없으면 빌드가 실패함
+        this.primary = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.initialCapacity = initialCapacity;
+        this.table = new Table(tableSize(initialCapacity));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("username index build failed, lookups fall back to the database", e);
+            }
+        }, "member-username-index");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * member 테이블 전체를 다시 읽어서 교체, 빌드 중에도 기존 테이블로 조회/변경 반영은 계속됨
+     */
+    public synchronized void rebuild() {
+        long stamp = lock.writeLock();
+        try {
+            pendingDuringBuild = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        long start = System.nanoTime();
+        //스트리밍 중에 늘어난 행 때문에 꽉 차면 키워야 하므로 배열로 들고 있음
+        Table[] fresh = new Table[1];
+        try {
+            primary.executeWithoutResult(status -> {
+                fresh[0] = new Table(tableSize(Math.max(initialCapacity, (int) Math.min(memberRepository.count(), 1 << 29))));
+                try (Stream<Object[]> rows = memberRepository.streamIdAndUsername()) {
+                    rows.forEach(row -> {
+                        String username = (String) row[1];
+                        if (username != null) {
+                            fresh[0].put(hash(username), username.hashCode(), (Long) row[0]);
+                            fresh[0] = fresh[0].compactIfNeeded();
+                        }
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            stamp = lock.writeLock();
+            pendingDuringBuild = null;
+            lock.unlockWrite(stamp);
+            throw e;
+        }
+
+        stamp = lock.writeLock();
+        try {
+            Table built = fresh[0];
+            for (Consumer<Table> change : pendingDuringBuild) {
+                change.accept(built);
+                built = built.compactIfNeeded();
+            }
+            table = built;
+            pendingDuringBuild = null;
+            ready = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("username index built: {} members in {} ms", table.size, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * username 의 id 들, 없으면 빈 배열
+     */
+    public long[] findIds(String username) {
+        long hash = hash(username);
+        int check = username.hashCode();
+        long stamp = lock.tryOptimisticRead();
+        long[] ids = table.find(hash, check);   //배열 3개를 한 객체로 들고 있어서 교체 중에도 길이가 어긋나지 않음
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                ids = table.find(hash, check);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * findMemberByUsername 과 같은 단건 조회, 같은 username 이 여러개면 예외
+     */
+    public OptionalLong findId(String username) {
+        long[] ids = findIds(username);
+        if (ids.length > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, ids.length);
+        }
+        return ids.length == 0 ? OptionalLong.empty() : OptionalLong.of(ids[0]);
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    public void put(String username, long id) {
+        long hash = hash(username);
+        int check = username.hashCode();
+        change(t -> t.put(hash, check, id));
+    }
+
+    public void remove(String username, long id) {
+        long hash = hash(username);
+        int check = username.hashCode();
+        change(t -> t.remove(hash, check, id));
+    }
+
+    //username 을 모를 때 (변경 전 상태가 없는 update), 테이블 전체를 훑으므로 드물게만 쓰임
+    public void removeId(long id) {
+        change(t -> t.removeId(id));
+    }
+
+    private void change(Consumer<Table> change) {
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            change.accept(current);
+            table = current.compactIfNeeded();
+            if (pendingDuringBuild != null) {
+                pendingDuringBuild.add(change);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static int tableSize(int expected) {
+        int size = Integer.highestOneBit(Math.max(16, (int) (expected / LOAD_FACTOR)));
+        return size < expected / LOAD_FACTOR ? size << 1 : size;
+    }
+
+    //FNV-1a 64 + murmur3 finalizer
+    static long hash(String username) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            h ^= username.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 선형 탐사 해시 테이블, ids[slot] 이 EMPTY 면 빈 칸 / REMOVED 면 지워진 칸
+     * 변경은 쓰기 락 안에서만, 읽기는 락 없이 (StampedLock 낙관적 읽기) 하므로 탐사는 항상 빈 칸에서 끝나야 함 -> used < 길이
+     */
+    private static final class Table {
+        final long[] hashes;
+        final int[] checks;
+        final long[] ids;
+        final int mask;
+        int size;       //살아있는 항목
+        int used;       //살아있는 항목 + REMOVED
+
+        Table(int capacity) {
+            hashes = new long[capacity];
+            checks = new int[capacity];
+            ids = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        long[] find(long hash, int check) {
+            long[] found = null;
+            int count = 0;
+            for (int slot = (int) hash & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+                long id = ids[slot];
+                if (id == EMPTY) {
+                    break;
+                }
+                if (id != REMOVED && hashes[slot] == hash && checks[slot] == check) {
+                    if (found == null) {
+                        found = new long[1];
+                    } else if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = id;
+                }
+            }
+            if (found == null) {
+                return new long[0];
+            }
+            return count == found.length ? found : Arrays.copyOf(found, count);
+        }
+
+        void put(long hash, int check, long id) {
+            int free = -1;
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+                long current = ids[slot];
+                if (current == EMPTY) {
+                    break;
+                }
+                if (current == REMOVED) {
+                    if (free < 0) {
+                        free = slot;
+                    }
+                } else if (current == id && hashes[slot] == hash && checks[slot] == check) {
+                    return;     //이미 있음 (빌드 중 변경을 다시 적용할 때)
+                }
+            }
+            if (free < 0) {
+                free = slot;
+                used++;
+            }
+            hashes[free] = hash;
+            checks[free] = check;
+            ids[free] = id;
+            size++;
+        }
+
+        void remove(long hash, int check, long id) {
+            for (int slot = (int) hash & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+                long current = ids[slot];
+                if (current == EMPTY) {
+                    return;
+                }
+                if (current == id && hashes[slot] == hash && checks[slot] == check) {
+                    ids[slot] = REMOVED;
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        void removeId(long id) {
+            for (int slot = 0; slot <= mask; slot++) {
+                if (ids[slot] == id) {
+                    ids[slot] = REMOVED;
+                    size--;
+                }
+            }
+        }
+
+        //꽉 차면 두배로, 지워진 칸이 많으면 같은 크기로 다시 만들어서 탐사 거리를 줄임
+        Table compactIfNeeded() {
+            if (used < (mask + 1) * LOAD_FACTOR) {
+                return this;
+            }
+            int capacity = size >= (mask + 1) * LOAD_FACTOR / 2 ? (mask + 1) << 1 : mask + 1;
+            Table resized = new Table(capacity);
+            for (int slot = 0; slot <= mask; slot++) {
+                if (ids[slot] != EMPTY && ids[slot] != REMOVED) {
+                    resized.put(hashes[slot], checks[slot], ids[slot]);
+                }
+            }
+            return resized;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package data.jpa.springdatajpa.repository;
+
+import data.jpa.springdatajpa.service.ParallelReadExecutor;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 키 목록으로 여러 건 조회 (where x in :keys) 를 청크로 나누고 IN 목록 크기를 2의 거듭제곱으로 맞춰서 실행
+ * - in (?, ?, ...) 는 바인딩 수마다 다른 SQL 이라 키 수가 제각각이면 prepared statement / 쿼리 플랜 캐시가 금방 참
+ *   -> 마지막 키를 반복해서 1, 2, 4, ... chunk-size 개로 맞추면 SQL 종류가 log2(chunk-size) + 1 개로 고정
+ * - chunk-size 를 넘는 목록은 여러 쿼리로 나눠서 드라이버/패킷 크기 제한에 걸리지 않게 함
+ * - 결과는 입력 키 순서대로 (중복 키는 한번만, 없는 키는 빠짐)
+ * - 호출한 쪽 트렌젝션이 없고 청크가 여러개면 ParallelReadExecutor 로 청크를 동시에 조회
+ *   (트렌젝션 안에서는 반환된 엔티티가 호출한 쪽 영속성 컨텍스트에 있어야 하므로 차례대로)
+ *   open-in-view 로 요청 스레드에 엔티티 매니저가 묶여 있을 때도 차례대로, 다른 스레드에서 읽은 엔티티는 detached 라
+ *   뷰에서 지연 로딩을 하면 LazyInitializationException
+ */
+@Component
+public class MultiGetExecutor {
+
+    private final ParallelReadExecutor parallelReadExecutor;
+    private final TransactionTemplate readOnly;
+    private final EntityManagerFactory emf;
+    private final int chunkSize;
+    private final boolean parallel;
+
+    public MultiGetExecutor(ParallelReadExecutor parallelReadExecutor,
+                            PlatformTransactionManager transactionManager,
+                            EntityManagerFactory emf,
+                            @Value("${app.multi-get.chunk-size:1024}") int chunkSize,
+                            @Value("${app.multi-get.parallel:true}") boolean parallel) {
+        if (Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("app.multi-get.chunk-size 는 2의 거듭제곱이어야 합니다: " + chunkSize);
+        }
+        this.parallelReadExecutor = parallelReadExecutor;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.emf = emf;
+        this.chunkSize = chunkSize;
+        this.parallel = parallel;
+    }
+
+    /**
+     * @param query 청크 하나(2의 거듭제곱 크기, 뒤쪽은 같은 키 반복)를 조회
+     * @param keyOf 결과에서 키를 꺼냄, 입력 순서대로 다시 정렬할 때 사용
+     */
+    public <K, V> List<V> getAll(Iterable<? extends K> keys, Function<List<K>, List<V>> query, Function<V, K> keyOf) {
+        LinkedHashSet<K> distinct = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (key != null) {
+                distinct.add(key);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return List.of();
+        }
+        List<List<K>> chunks = chunks(distinct);
+        List<V> found = new ArrayList<>(distinct.size());
+        if (parallel && chunks.size() > 1 && !TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.hasResource(emf)) {
+            List<CompletableFuture<List<V>>> futures = new ArrayList<>(chunks.size());
+            for (List<K> chunk : chunks) {
+                futures.add(parallelReadExecutor.read(() -> query.apply(chunk)));
+            }
+            for (CompletableFuture<List<V>> future : futures) {
+                found.addAll(ParallelReadExecutor.join(future));
+            }
+        } else {
+            readOnly.executeWithoutResult(status -> chunks.forEach(chunk -> found.addAll(query.apply(chunk))));
+        }
+        return inKeyOrder(distinct, found, keyOf);
+    }
+
+    private <K> List<List<K>> chunks(Collection<K> keys) {
+        List<List<K>> chunks = new ArrayList<>(keys.size() / chunkSize + 1);
+        List<K> chunk = new ArrayList<>(Math.min(keys.size(), chunkSize));
+        for (K key : keys) {
+            chunk.add(key);
+            if (chunk.size() == chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(padded(chunk));
+        }
+        return chunks;
+    }
+
+    //마지막 키를 반복해서 2의 거듭제곱 개로 (in 목록의 중복 값은 결과에 영향 없음)
+    static <K> List<K> padded(List<K> chunk) {
+        int size = chunk.size();
+        int target = Integer.highestOneBit(size) == size ? size : Integer.highestOneBit(size) << 1;
+        K last = chunk.get(size - 1);
+        for (int i = size; i < target; i++) {
+            chunk.add(last);
+        }
+        return chunk;
+    }
+
+    //같은 키에 결과가 여러 건일 수 있음 (username), 입력에 없는 키로 돌아온 결과(대소문자를 무시하는 collation 등)는 맨 뒤에
+    private static <K, V> List<V> inKeyOrder(Collection<K> keys, List<V> found, Function<V, K> keyOf) {
+        Map<K, Object> byKey = new HashMap<>(found.size() * 4 / 3 + 1);
+        for (V value : found) {
+            byKey.merge(keyOf.apply(value), value, MultiGetExecutor::append);
+        }
+        List<V> result = new ArrayList<>(found.size());
+        for (K key : keys) {
+            addTo(result, byKey.remove(key));
+        }
+        byKey.values().forEach(rest -> addTo(result, rest));
+        return result;
+    }
+
+    //결과가 한 건이면 리스트를 만들지 않음 (findAllById 는 항상 한 건)
+    private static Object append(Object current, Object value) {
+        List<Object> values;
+        if (current instanceof Multiple multiple) {
+            values = multiple.values;
+        } else {
+            values = new ArrayList<>(2);
+            values.add(current);
+            current = new Multiple(values);
+        }
+        values.add(value);
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void addTo(List<V> result, Object found) {
+        if (found == null) {
+            return;
+        }
+        if (found instanceof Multiple multiple) {
+            for (Object value : multiple.values) {
+                result.add((V) value);
+            }
+        } else {
+            result.add((V) found);
+        }
+    }
+
+    private record Multiple(List<Object> values) {
+    }
+}
@@ -0,0 +1,20 @@
+package data.jpa.springdatajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.LongSupplier;
+
+/**
+ * count 쿼리 없이 가져온 Slice(pageSize + 1 건 조회로 다음 페이지 여부만 앎)를 CountMode 에 따라 Page 로 만들어주는 fragment
+ * 리포지토리의 default 메서드에서 메서드마다 CountMode 를 정해서 사용
+ */
+public interface PageCountRepository {
+
+    /**
+     * @param table      ESTIMATED 에서 통계를 볼 테이블 이름
+     * @param countQuery 정확한 count 가 필요할 때 실행할 쿼리
+     * @param key        CACHED 에서 캐시 키로 쓸 값 (메서드 이름 + 조건 파라미터)
+     */
+    <T> Page<T> toPage(Slice<T> slice, CountMode mode, String table, LongSupplier countQuery, Object... key);
+}
@@ -0,0 +1,65 @@
+package data.jpa.springdatajpa.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+public class PageCountRepositoryImpl implements PageCountRepository {
+
+    private final EntityManager em;
+    private final Cache<List<Object>, Long> counts;
+
+    public PageCountRepositoryImpl(EntityManager em,
+                                   @Value("${app.page-count.cache-ttl:60s}") Duration ttl,
+                                   @Value("${app.page-count.cache-size:10000}") long maximumSize) {
+        this.em = em;
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @Override
+    public <T> Page<T> toPage(Slice<T> slice, CountMode mode, String table, LongSupplier countQuery, Object... key) {
+        Pageable pageable = slice.getPageable();
+        List<T> content = slice.getContent();
+
+        //마지막 페이지면 offset + 가져온 수가 곧 전체 갯수 (범위를 넘어선 빈 페이지는 제외)
+        if (!slice.hasNext() && (pageable.isUnpaged() || pageable.getOffset() == 0 || !content.isEmpty())) {
+            long total = pageable.isPaged() ? pageable.getOffset() + content.size() : content.size();
+            if (mode == CountMode.CACHED) {
+                counts.put(Arrays.asList(key), total);
+            }
+            return new PageImpl<>(content, pageable, total);
+        }
+
+        //캐시/추정치가 실제보다 작아도 지금 보고 있는 페이지 + 다음 row 가 있다는 것은 확실함
+        long seen = pageable.getOffset() + content.size() + (slice.hasNext() ? 1 : 0);
+        long total = switch (mode) {
+            case EXACT -> countQuery.getAsLong();
+            case CACHED -> counts.get(Arrays.asList(key), k -> countQuery.getAsLong());
+            case ESTIMATED -> estimate(table);
+            case SKIP -> seen;
+        };
+        return new PageImpl<>(content, pageable, Math.max(total, seen));
+    }
+
+    private long estimate(String table) {
+        Object rows = em.createNativeQuery("select table_rows from information_schema.tables " +
+                        "where table_schema = database() and table_name = :table")
+                .setParameter("table", table)
+                .getResultList()
+                .stream().findFirst().orElse(null);
+        return rows == null ? 0 : ((Number) rows).longValue();
+    }
+}
@@ -0,0 +1,166 @@
+package data.jpa.springdatajpa.repository;
+
+import org.hibernate.query.TupleTransformer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * 네이티브/JPQL 쿼리 결과 row(Object[] + 컬럼 별칭)를 record 나 생성자가 있는 클래스로 바로 만드는 매퍼
+ * - 인터페이스 프로젝션은 row 마다 Map + JDK 프록시를 만들고 getter 를 부를 때마다 map 조회 + 타입 변환을 함
+ * - 여기서는 타입별로 생성자 MethodHandle, 파라미터별 변환을 한번만 만들어 두고 (of() 에서 캐시) row 당 생성자 호출 한번만 함
+ * - 별칭 -> 생성자 파라미터 위치는 쿼리의 첫 row 에서 한번 계산 (대소문자 무시, H2 는 별칭을 대문자로 돌려줌)
+ *   별칭 순서가 생성자 파라미터 순서와 같으면 row 배열을 그대로 인자로 넘기므로 추가 할당이 없음
+ * 사용법: query.unwrap(NativeQuery.class).setTupleTransformer(ProjectionMapper.of(MemberRow.class))
+ * (JPQL 도 select m.id as id, ... 처럼 별칭을 주면 같은 방식으로 매핑됨)
+ */
+public final class ProjectionMapper<T> implements TupleTransformer<T> {
+
+    private static final ClassValue<ProjectionMapper<?>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected ProjectionMapper<?> computeValue(Class<?> type) {
+            return new ProjectionMapper<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final MethodHandle constructor;         //(Object[]) -> Object
+    private final String[] names;
+    private final UnaryOperator<Object>[] converters;
+    private volatile Layout layout;                 //마지막으로 본 별칭 배치, 같은 쿼리면 계속 재사용
+
+    @SuppressWarnings("unchecked")
+    public static <T> ProjectionMapper<T> of(Class<T> type) {
+        return (ProjectionMapper<T>) MAPPERS.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProjectionMapper(Class<T> type) {
+        this.type = type;
+        Constructor<?> ctor = constructorOf(type);
+        Parameter[] parameters = ctor.getParameters();
+        RecordComponent[] components = type.getRecordComponents();
+        this.names = new String[parameters.length];
+        this.converters = new UnaryOperator[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            names[i] = components != null ? components[i].getName() : parameters[i].getName();
+            converters[i] = converter(parameters[i].getType());
+        }
+        try {
+            ctor.setAccessible(true);
+            this.constructor = MethodHandles.lookup().unreflectConstructor(ctor)
+                    .asSpreader(Object[].class, parameters.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " 의 생성자에 접근할 수 없습니다", e);
+        }
+    }
+
+    @Override
+    public T transformTuple(Object[] tuple, String[] aliases) {
+        Layout current = layout;
+        if (current == null || (current.aliases != aliases && !Arrays.equals(current.aliases, aliases))) {
+            current = Layout.of(type, names, aliases, tuple.length);
+            layout = current;
+        }
+        Object[] args;
+        if (current.index == null) {
+            args = tuple;
+            for (int i = 0; i < args.length; i++) {
+                args[i] = converters[i].apply(args[i]);
+            }
+        } else {
+            args = new Object[names.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = converters[i].apply(tuple[current.index[i]]);
+            }
+        }
+        try {
+            return type.cast((Object) constructor.invokeExact(args));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(type.getName() + " 생성 실패", e);
+        }
+    }
+
+    //record 는 정식 생성자, 클래스는 파라미터 이름이 있는(-parameters) 생성자 중 파라미터가 가장 많은 것
+    private static Constructor<?> constructorOf(Class<?> type) {
+        if (type.isRecord()) {
+            Class<?>[] types = Arrays.stream(type.getRecordComponents()).map(RecordComponent::getType).toArray(Class<?>[]::new);
+            try {
+                return type.getDeclaredConstructor(types);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        Constructor<?> found = null;
+        for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+            if (candidate.getParameterCount() > 0 && candidate.getParameters()[0].isNamePresent()
+                    && (found == null || candidate.getParameterCount() > found.getParameterCount())) {
+                found = candidate;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException(type.getName() + " 에 파라미터 이름을 알 수 있는 생성자가 없습니다 (-parameters 컴파일 옵션 필요)");
+        }
+        return found;
+    }
+
+    //드라이버마다 숫자 타입이 다르게 올 수 있음 (count(*) 는 Long/BigInteger, MySQL int unsigned 는 Long 등)
+    private static UnaryOperator<Object> converter(Class<?> target) {
+        if (target == Long.class || target == long.class) {
+            return v -> v instanceof Number n && !(v instanceof Long) ? n.longValue() : v;
+        }
+        if (target == Integer.class || target == int.class) {
+            return v -> v instanceof Number n && !(v instanceof Integer) ? n.intValue() : v;
+        }
+        if (target == String.class) {
+            return v -> v == null || v instanceof String ? v : v.toString();
+        }
+        if (target == LocalDateTime.class) {
+            return v -> v instanceof Timestamp t ? t.toLocalDateTime() : v;
+        }
+        return UnaryOperator.identity();
+    }
+
+    /**
+     * index == null 이면 별칭 순서 = 생성자 파라미터 순서
+     */
+    private record Layout(String[] aliases, int[] index) {
+
+        static Layout of(Class<?> type, String[] names, String[] aliases, int width) {
+            if (aliases == null || Arrays.stream(aliases).anyMatch(a -> a == null)) {
+                //별칭이 없으면 위치로만 매핑
+                if (width != names.length) {
+                    throw new IllegalArgumentException(type.getName() + " 의 파라미터 수(" + names.length + ")와 컬럼 수(" + width + ")가 다릅니다");
+                }
+                return new Layout(aliases, null);
+            }
+            int[] index = new int[names.length];
+            boolean inOrder = aliases.length == names.length;
+            for (int i = 0; i < names.length; i++) {
+                index[i] = -1;
+                for (int j = 0; j < aliases.length; j++) {
+                    if (names[i].equalsIgnoreCase(aliases[j])) {
+                        index[i] = j;
+                        break;
+                    }
+                }
+                if (index[i] < 0) {
+                    throw new IllegalArgumentException(type.getName() + "." + names[i] + " 에 해당하는 컬럼이 없습니다: " + Arrays.toString(aliases));
+                }
+                inOrder &= index[i] == i;
+            }
+            return new Layout(aliases, inOrder ? null : index);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package data.jpa.springdatajpa.repository;
 
 import data.jpa.springdatajpa.entity.Team;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface TeamRepository extends JpaRepository<Team , Long> {
+@Transactional(readOnly = true)     //MemberRepository 와 같음, 조회는 복제 DB
+public interface TeamRepository extends JpaRepository<Team , Long>, BatchSaveRepository<Team> {
 }
@@ -0,0 +1,99 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.entity.AuditHistory;
+import data.jpa.springdatajpa.entity.AuditHistory.Operation;
+import data.jpa.springdatajpa.entity.AuditStamp;
+import data.jpa.springdatajpa.entity.CommitSequence;
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member / Team 의 insert, update, delete 를 flush 때 AuditHistory 로 만들어 세션(트렌젝션)별로 모아두고
+ * 커밋이 성공하면 AuditHistoryWriter 큐로 넘김 -> 롤백된 변경은 이력에 남지 않고, 트렌젝션은 이력 insert 를 기다리지 않음
+ * 커밋 순서(commitSeq)는 커밋 직전에 받음, 커밋 후 콜백은 커밋한 순서대로 실행된다는 보장이 없음
+ * 벌크 쿼리는 이벤트가 없으므로 recordBulkAgePlus 로 직접 기록 (@AuditedBulkAgePlus, MemberJPARepository)
+ */
+@Component
+@ConditionalOnProperty(name = "app.audit-history.enabled", havingValue = "true", matchIfMissing = true)
+public class AuditHistoryListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final AuditHistoryWriter writer;
+    private final Map<SharedSessionContractImplementor, List<AuditHistory>> pending = new ConcurrentHashMap<>();
+
+    public AuditHistoryListener(AuditHistoryWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), Operation.INSERT, event.getEntity(), event.getId(), event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), Operation.UPDATE, event.getEntity(), event.getId(), event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), Operation.DELETE, event.getEntity(), event.getId(), event.getPersister(), event.getDeletedState());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    public void recordBulkAgePlus(SessionImplementor session, int age, Long fromId, Long toId) {
+        add(session, AuditHistory.bulkAgePlus(age, fromId, toId, AuditStamp.currentTime()));
+    }
+
+    private void record(EventSource session, Operation operation, Object entity, Object id,
+                        EntityPersister persister, Object[] state) {
+        if (entity instanceof Member) {
+            Team team = (Team) state[persister.getPropertyIndex("team")];
+            add(session, AuditHistory.member(operation, (Long) id, AuditStamp.currentTime(),
+                    (String) state[persister.getPropertyIndex("lastModifiedBy")],
+                    (String) state[persister.getPropertyIndex("username")],
+                    (Integer) state[persister.getPropertyIndex("age")],
+                    team == null ? null : team.getId()));
+        } else if (entity instanceof Team) {
+            add(session, AuditHistory.team(operation, (Long) id, AuditStamp.currentTime(),
+                    (String) state[persister.getPropertyIndex("name")]));
+        }
+    }
+
+    private void add(SessionImplementor session, AuditHistory history) {
+        List<AuditHistory> entries = pending.get(session);
+        if (entries == null) {
+            entries = new ArrayList<>();
+            pending.put(session, entries);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) s -> {
+                List<AuditHistory> committing = pending.get(s);
+                if (committing != null) {
+                    committing.forEach(entry -> entry.markCommitted(CommitSequence.next()));
+                }
+            });
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+                List<AuditHistory> committed = pending.remove(s);
+                if (success && committed != null) {
+                    writer.enqueue(committed);
+                }
+            });
+        }
+        entries.add(history);
+    }
+}
@@ -0,0 +1,46 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.dto.MemberHistoryDTO;
+import data.jpa.springdatajpa.entity.AuditHistory;
+import data.jpa.springdatajpa.entity.AuditHistory.EntityType;
+import data.jpa.springdatajpa.entity.AuditHistory.Operation;
+import data.jpa.springdatajpa.repository.AuditHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 변경 이력 조회, 이력은 비동기로 쓰이므로 방금 커밋한 변경은 아직 안 보일 수 있음
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AuditHistoryService {
+
+    private final AuditHistoryRepository auditHistoryRepository;
+
+    /**
+     * at 시점의 회원 상태, 그 시점에 없었거나 삭제된 상태면 empty
+     * 마지막 스냅샷(INSERT/UPDATE/DELETE) 이후에 커밋된 BULK_AGE_PLUS 를 커밋 순서(commitSeq)대로 다시 적용
+     */
+    public Optional<MemberHistoryDTO> memberAt(Long memberId, LocalDateTime at) {
+        Optional<AuditHistory> snapshot = auditHistoryRepository
+                .findFirstByEntityTypeAndEntityIdAndChangedAtLessThanEqualOrderByCommitSeqDesc(EntityType.MEMBER, memberId, at);
+        if (snapshot.isEmpty() || snapshot.get().getOperation() == Operation.DELETE) {
+            return Optional.empty();
+        }
+        AuditHistory last = snapshot.get();
+        int age = last.getAge();
+        LocalDateTime changedAt = last.getChangedAt();
+        for (AuditHistory bulk : auditHistoryRepository.findOperationsAfter(Operation.BULK_AGE_PLUS, last.getCommitSeq(), at)) {
+            if (bulk.appliesTo(memberId, age)) {
+                age++;
+                changedAt = bulk.getChangedAt();
+            }
+        }
+        return Optional.of(new MemberHistoryDTO(memberId, last.getUsername(), age, last.getTeamId(), changedAt, last.getChangedBy()));
+    }
+}
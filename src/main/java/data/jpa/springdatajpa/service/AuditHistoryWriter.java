@@ -0,0 +1,141 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.entity.AuditHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 커밋된 변경 이력을 큐에 받아서 백그라운드 스레드 하나가 batch-size 개씩 모아 insert
+ * (rewriteBatchedStatements=true 라 multi-row insert 한번) -> 변경하는 트렌젝션은 이력 insert 를 기다리지 않음
+ * 큐가 꽉 차면 enqueue-timeout 동안 기다리고 (backpressure), 그래도 자리가 없으면 호출한 스레드에서 직접 insert 해서 이력을 버리지 않음
+ * 비동기이므로 커밋 직후 프로세스가 죽으면 큐에 남아있던 이력은 남지 않음
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.audit-history.enabled", havingValue = "true", matchIfMissing = true)
+public class AuditHistoryWriter {
+
+    private static final String INSERT = "insert into audit_history (entity_type, entity_id, operation, changed_at, changed_by, " +
+            "username, age, team_id, name, from_id, to_id, commit_seq) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<AuditHistory> queue;
+    private final int batchSize;
+    private final Duration enqueueTimeout;
+    private final AtomicLong unwritten = new AtomicLong();     //큐에 있거나 쓰는 중인 이력 수
+    private final Counter callerWrites = Metrics.counter("audit.history.caller_writes");
+    private final Counter failed = Metrics.counter("audit.history.failed");
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public AuditHistoryWriter(JdbcTemplate jdbcTemplate,
+                              @Value("${app.audit-history.queue-capacity:100000}") int queueCapacity,
+                              @Value("${app.audit-history.batch-size:500}") int batchSize,
+                              @Value("${app.audit-history.enqueue-timeout:1s}") Duration enqueueTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.enqueueTimeout = enqueueTimeout;
+        this.worker = new Thread(this::run, "audit-history-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void enqueue(List<AuditHistory> entries) {
+        unwritten.addAndGet(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            boolean queued;
+            try {
+                queued = queue.offer(entries.get(i), enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (!queued) {
+                List<AuditHistory> rest = entries.subList(i, entries.size());
+                callerWrites.increment(rest.size());
+                write(rest);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 지금까지 받은 이력이 모두 insert 될 때까지 기다림 (테스트, 종료시)
+     */
+    public boolean awaitWritten(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (unwritten.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private void run() {
+        List<AuditHistory> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditHistory first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<AuditHistory> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, history) -> {
+                ps.setString(1, history.getEntityType().name());
+                ps.setObject(2, history.getEntityId(), Types.BIGINT);
+                ps.setString(3, history.getOperation().name());
+                ps.setTimestamp(4, Timestamp.valueOf(history.getChangedAt()));
+                ps.setString(5, history.getChangedBy());
+                ps.setString(6, history.getUsername());
+                ps.setObject(7, history.getAge(), Types.INTEGER);
+                ps.setObject(8, history.getTeamId(), Types.BIGINT);
+                ps.setString(9, history.getName());
+                ps.setObject(10, history.getFromId(), Types.BIGINT);
+                ps.setObject(11, history.getToId(), Types.BIGINT);
+                ps.setLong(12, history.getCommitSeq());
+            });
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.error("failed to write {} audit history entries", batch.size(), e);
+        } finally {
+            unwritten.addAndGet(-batch.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.join(10_000);
+    }
+}
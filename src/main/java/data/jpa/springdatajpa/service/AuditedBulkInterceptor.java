@@ -0,0 +1,100 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.repository.AuditedBulkAgePlus;
+import jakarta.persistence.EntityManager;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @AuditedBulkAgePlus 메서드가 성공하면 같은 트렌젝션에 BULK_AGE_PLUS 이력을 기록 (리포지토리 프록시에 advice 로 추가됨, AuditHistoryConfig 참고)
+ * 호출한 쪽에 트렌젝션이 없어도 벌크 쿼리와 이력이 같은 트렌젝션이 되도록 여기서 트렌젝션을 열어서 참여시킴
+ * 메서드마다 어노테이션 / 파라미터 위치는 처음 호출될 때 한번만 확인해서 들고 있음
+ */
+public class AuditedBulkInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<AuditHistoryListener> listener;
+    private final ObjectProvider<EntityManager> em;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final Map<Method, Arguments> arguments = new ConcurrentHashMap<>();
+
+    public AuditedBulkInterceptor(ObjectProvider<AuditHistoryListener> listener, ObjectProvider<EntityManager> em,
+                                  ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.listener = listener;
+        this.em = em;
+        this.transactionManager = transactionManager;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Arguments args = arguments.computeIfAbsent(invocation.getMethod(), Arguments::of);
+        AuditHistoryListener auditHistoryListener = args == Arguments.NONE ? null : listener.getIfAvailable();
+        if (auditHistoryListener == null) {
+            return invocation.proceed();
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager.getObject());
+        try {
+            return tx.execute(status -> {
+                Object result = proceed(invocation);
+                Object[] values = invocation.getArguments();
+                auditHistoryListener.recordBulkAgePlus(em.getObject().unwrap(SessionImplementor.class),
+                        ((Number) values[args.age()]).intValue(), toLong(args.fromId(), values), toLong(args.toId(), values));
+                return result;
+            });
+        } catch (ProceedException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object proceed(MethodInvocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ProceedException(e);
+        }
+    }
+
+    private static Long toLong(int index, Object[] values) {
+        return index < 0 || values[index] == null ? null : ((Number) values[index]).longValue();
+    }
+
+    //@Param 이름(age, fromId, toId)의 파라미터 위치, 없으면 -1
+    private record Arguments(int age, int fromId, int toId) {
+        static final Arguments NONE = new Arguments(-1, -1, -1);
+
+        static Arguments of(Method method) {
+            if (!method.isAnnotationPresent(AuditedBulkAgePlus.class)) {
+                return NONE;
+            }
+            return new Arguments(index(method, "age"), index(method, "fromId"), index(method, "toId"));
+        }
+
+        private static int index(Method method, String name) {
+            Parameter[] parameters = method.getParameters();
+            for (int i = 0; i < parameters.length; i++) {
+                Param param = parameters[i].getAnnotation(Param.class);
+                if (param != null && param.value().equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static class ProceedException extends RuntimeException {
+        ProceedException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package data.jpa.springdatajpa.service;
+
+import lombok.Getter;
+
+@Getter
+public class BulkUpdateResult {
+
+    private final int chunks;
+    private final long updated;
+
+    public BulkUpdateResult(int chunks, long updated) {
+        this.chunks = chunks;
+        this.updated = updated;
+    }
+}
@@ -0,0 +1,22 @@
+package data.jpa.springdatajpa.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 청크 실행 중 실패, 이미 커밋된 청크는 그대로 두고 남은 범위(remaining)만 다시 실행하면 이어서 처리됨
+ * ‼️ age + 1 같은 업데이트는 같은 청크를 두번 실행하면 두번 적용되므로 반드시 remaining 으로 재개해야함
+ */
+@Getter
+public class ChunkedBulkUpdateException extends RuntimeException {
+
+    private final List<IdRange> remaining;
+    private final long updated;
+
+    public ChunkedBulkUpdateException(List<IdRange> remaining, long updated, Throwable cause) {
+        super("벌크 업데이트 실패, 남은 청크 " + remaining.size() + "개 (이미 반영된 row " + updated + "개)", cause);
+        this.remaining = remaining;
+        this.updated = updated;
+    }
+}
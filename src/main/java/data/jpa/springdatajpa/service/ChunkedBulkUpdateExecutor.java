@@ -0,0 +1,152 @@
+package data.jpa.springdatajpa.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 큰 벌크 업데이트를 PK 범위 청크로 나눠서 청크마다 별도 트렌젝션으로 커밋
+ * 한번에 lock 을 잡는 row 수와 시간이 청크 하나로 제한되어 다른 트렌젝션이 오래 기다리지 않음
+ * parallelism > 1 이면 청크를 여러 스레드에서 동시에 실행 (커넥션 풀 크기보다 작게)
+ * 실패하면 ChunkedBulkUpdateException 의 남은 범위로 다시 execute 해서 재개
+ */
+@Slf4j
+@Component
+public class ChunkedBulkUpdateExecutor {
+
+    private final TransactionTemplate chunkTransaction;
+    private final EntityManagerFactory emf;
+
+    public ChunkedBulkUpdateExecutor(PlatformTransactionManager transactionManager, EntityManagerFactory emf) {
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.emf = emf;
+    }
+
+    @FunctionalInterface
+    public interface RangeUpdate {
+        int update(long fromId, long toId);
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onChunk(IdRange range, int updated, int completedChunks, int totalChunks);
+    }
+
+    public BulkUpdateResult execute(List<IdRange> ranges, int parallelism, RangeUpdate update) {
+        return execute(ranges, parallelism, update, (range, updated, completed, total) ->
+                log.info("bulk update {} -> {} rows ({}/{})", range, updated, completed, total));
+    }
+
+    public BulkUpdateResult execute(List<IdRange> ranges, int parallelism, RangeUpdate update, ProgressListener listener) {
+        try {
+            if (parallelism <= 1) {
+                return executeSequential(ranges, update, listener);
+            }
+            return executeParallel(ranges, parallelism, update, listener);
+        } finally {
+            clearCallerPersistenceContext();
+        }
+    }
+
+    private BulkUpdateResult executeSequential(List<IdRange> ranges, RangeUpdate update, ProgressListener listener) {
+        long updated = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            IdRange range = ranges.get(i);
+            int count;
+            try {
+                count = runChunk(range, update);
+            } catch (RuntimeException e) {
+                throw new ChunkedBulkUpdateException(new ArrayList<>(ranges.subList(i, ranges.size())), updated, e);
+            }
+            updated += count;
+            listener.onChunk(range, count, i + 1, ranges.size());
+        }
+        return new BulkUpdateResult(ranges.size(), updated);
+    }
+
+    private BulkUpdateResult executeParallel(List<IdRange> ranges, int parallelism, RangeUpdate update, ProgressListener listener) {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(ranges.size(), 1)));
+        Set<IdRange> done = ConcurrentHashMap.newKeySet();
+        AtomicLong updated = new AtomicLong();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            List<Future<?>> futures = new ArrayList<>(ranges.size());
+            for (IdRange range : ranges) {
+                futures.add(workers.submit(() -> {
+                    if (failed.get()) {
+                        return;     //다른 청크가 실패하면 아직 시작하지 않은 청크는 실행하지 않음
+                    }
+                    try {
+                        int count = runChunk(range, update);
+                        done.add(range);
+                        updated.addAndGet(count);
+                        listener.onChunk(range, count, completed.incrementAndGet(), ranges.size());
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }));
+            }
+            Throwable cause = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (cause == null) {
+                        cause = e.getCause();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.set(true);
+                    cause = e;
+                    break;
+                }
+            }
+            if (cause != null) {
+                workers.shutdown();
+                awaitWorkers(workers);  //진행 중인 청크가 끝나야 어떤 범위가 남았는지 정확히 알 수 있음
+                List<IdRange> remaining = ranges.stream().filter(range -> !done.contains(range)).toList();
+                throw new ChunkedBulkUpdateException(remaining, updated.get(), cause);
+            }
+            return new BulkUpdateResult(ranges.size(), updated.get());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private int runChunk(IdRange range, RangeUpdate update) {
+        Integer count = chunkTransaction.execute(status -> update.update(range.getFromId(), range.getToId()));
+        return count == null ? 0 : count;
+    }
+
+    private void awaitWorkers(ExecutorService workers) {
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("bulk update 청크가 끝나기를 기다리는 중");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //@Modifying(clearAutomatically = true) 와 같은 약속: 호출한 쪽 영속성 컨텍스트의 엔티티는 이제 오래된 값이므로 비움
+    private void clearCallerPersistenceContext() {
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (em != null) {
+            em.clear();
+        }
+    }
+}
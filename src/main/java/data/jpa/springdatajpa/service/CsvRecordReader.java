@@ -0,0 +1,101 @@
+package data.jpa.springdatajpa.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV 를 한 레코드씩 읽음 (따옴표 안의 , 와 줄바꿈, "" 는 " 하나), 업로드 크기와 상관없이 버퍼 하나만 사용
+ * - 빈 필드는 null, "" 처럼 따옴표로 감싼 빈 문자열은 ""
+ * - 빈 줄은 건너뜀, 줄 끝은 \n 또는 \r\n
+ * BufferedReader.read() 는 글자마다 lock 을 잡으므로 직접 char[] 로 읽음
+ */
+class CsvRecordReader {
+
+    private final Reader reader;
+    private final char[] buffer = new char[64 * 1024];
+    private int position;
+    private int limit;
+
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> record = new ArrayList<>();
+    private long line;          //마지막으로 읽은 레코드가 시작된 줄
+    private long nextLine = 1;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    //다음 레코드, 끝이면 null
+    String[] next() throws IOException {
+        int c = read();
+        while (c == '\n' || c == '\r') {
+            if (c == '\n') {
+                nextLine++;
+            }
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        line = nextLine;
+        record.clear();
+        field.setLength(0);
+        boolean quoted = false;     //따옴표 안
+        boolean wasQuoted = false;  //지금 필드가 따옴표로 시작했는지
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException(line + "번째 줄: 따옴표가 닫히지 않음");
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {     //닫는 따옴표, 다음 글자는 따옴표 밖에서 다시 봄
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    nextLine++;
+                }
+                field.append((char) c);
+            } else if (c == ',') {
+                endField(wasQuoted);
+                wasQuoted = false;
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') {
+                    nextLine++;
+                }
+                endField(wasQuoted);
+                return record.toArray(new String[0]);
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    long line() {
+        return line;
+    }
+
+    private void endField(boolean wasQuoted) {
+        record.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+        field.setLength(0);
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+}
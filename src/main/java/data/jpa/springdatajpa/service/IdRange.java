@@ -0,0 +1,42 @@
+package data.jpa.springdatajpa.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벌크 업데이트 청크 하나가 처리할 PK 범위 [fromId, toId]
+ */
+@Getter
+@EqualsAndHashCode
+public class IdRange {
+
+    private final long fromId;
+    private final long toId;
+
+    public IdRange(long fromId, long toId) {
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
+    public static List<IdRange> split(long minId, long maxId, long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 는 0보다 커야합니다: " + chunkSize);
+        }
+        List<IdRange> ranges = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += chunkSize) {
+            ranges.add(new IdRange(from, Math.min(from + chunkSize - 1, maxId)));
+            if (from > Long.MAX_VALUE - chunkSize) {
+                break;
+            }
+        }
+        return ranges;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + fromId + ", " + toId + "]";
+    }
+}
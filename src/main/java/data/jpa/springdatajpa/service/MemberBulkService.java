@@ -0,0 +1,39 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * MemberRepository.bulkAgePlus 를 청크 단위로 나눠서 실행
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberBulkService {
+
+    private final MemberRepository memberRepository;
+    private final ChunkedBulkUpdateExecutor executor;
+
+    @Value("${app.bulk-update.chunk-size:10000}")
+    private int chunkSize;
+    @Value("${app.bulk-update.parallelism:1}")
+    private int parallelism;
+
+    public BulkUpdateResult bulkAgePlus(int age) {
+        Long minId = memberRepository.findMinId();
+        Long maxId = memberRepository.findMaxId();  //시작 시점의 max id 까지만 처리, 이후에 추가된 회원은 대상이 아님
+        if (minId == null) {
+            return new BulkUpdateResult(0, 0);
+        }
+        return resumeBulkAgePlus(age, IdRange.split(minId, maxId, chunkSize));
+    }
+
+    //실패했을 때 ChunkedBulkUpdateException.getRemaining() 을 넘겨서 이어서 실행
+    public BulkUpdateResult resumeBulkAgePlus(int age, List<IdRange> remaining) {
+        return executor.execute(remaining, parallelism,
+                (fromId, toId) -> memberRepository.bulkAgePlusInRange(age, fromId, toId));
+    }
+}
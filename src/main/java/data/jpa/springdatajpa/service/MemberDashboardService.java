@@ -0,0 +1,46 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.dto.MemberDashboardDTO;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static data.jpa.springdatajpa.service.ParallelReadExecutor.join;
+
+@Service
+@RequiredArgsConstructor
+public class MemberDashboardService {
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final ParallelReadExecutor parallelReadExecutor;
+
+    //엔티티는 각자의 트렌젝션이 끝나면 준영속이 되므로 트렌젝션 안에서 DTO 로 바꿔서 넘김
+    public MemberDashboardDTO dashboard(int age, Pageable pageable) {
+        CompletableFuture<Page<MemberDTO>> members = parallelReadExecutor.read(
+                () -> memberRepository.findByAge(age, pageable).map(MemberDTO::new));
+        CompletableFuture<List<String>> teamNames = parallelReadExecutor.read(
+                () -> teamRepository.findAll().stream().map(Team::getName).toList());
+        CompletableFuture<Long> count = parallelReadExecutor.read(memberRepository::count);
+        CompletableFuture<List<String>> usernames = parallelReadExecutor.read(memberRepository::getUsernameList);
+
+        return new MemberDashboardDTO(join(members), join(teamNames), join(count), join(usernames));
+    }
+
+    //비교용: 같은 조회를 차례대로 실행
+    public MemberDashboardDTO dashboardSequential(int age, Pageable pageable) {
+        return new MemberDashboardDTO(
+                memberRepository.findByAge(age, pageable).map(MemberDTO::new),
+                teamRepository.findAll().stream().map(Team::getName).toList(),
+                memberRepository.count(),
+                memberRepository.getUsernameList());
+    }
+}
@@ -0,0 +1,124 @@
+package data.jpa.springdatajpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 회원 전체를 한 row 씩 읽어서 바로 응답에 써줌, 회원 수와 상관없이 메모리 사용량이 일정함
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final MemberRepository memberRepository;
+    private final MemberSliceScanner memberSliceScanner;
+    private final ObjectMapper objectMapper;
+
+    //Stream 은 커넥션/커서를 잡고 있으므로 트렌젝션이 끝나기 전에 다 써야함
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<MemberDTO> members = memberRepository.streamAllDTO();
+             SequenceWriter writer = objectMapper.writerFor(MemberDTO.class)
+                     .withRootValueSeparator("\n")
+                     .writeValues(new NonClosingOutputStream(out))) {
+            Iterator<MemberDTO> it = members.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+
+    //나이가 같은 회원 전체, slice 를 쓰는 동안 다음 slice 를 미리 읽음 (slice 마다 트렌젝션이 따로라 여기는 트렌젝션 없음)
+    public long exportByAgeNdjson(int age, OutputStream out) throws IOException {
+        long count = 0;
+        try (PrefetchingSliceIterator<MemberDTO> slices = memberSliceScanner.scanByAge(age);
+             SequenceWriter writer = objectMapper.writerFor(MemberDTO.class)
+                     .withRootValueSeparator("\n")
+                     .writeValues(new NonClosingOutputStream(out))) {
+            while (slices.hasNext()) {
+                for (MemberDTO member : slices.next()) {
+                    writer.write(member);
+                    count++;
+                }
+                writer.flush();
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportCsv(OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,username,teamName\n");
+        try (Stream<MemberDTO> members = memberRepository.streamAllDTO()) {
+            Iterator<MemberDTO> it = members.iterator();
+            while (it.hasNext()) {
+                MemberDTO member = it.next();
+                writer.write(String.valueOf(member.getId()));
+                writer.write(',');
+                writer.write(csv(member.getUsername()));
+                writer.write(',');
+                writer.write(csv(member.getTeamName()));
+                writer.write('\n');
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    //응답 스트림은 컨테이너가 닫아야 하므로 SequenceWriter 가 닫지 않게 막음
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package data.jpa.springdatajpa.service;
+
+import lombok.Getter;
+
+/**
+ * 대량 등록 중 실패 (입력 오류 / batch insert 실패), batch 마다 커밋하므로 이미 커밋된 batch 는 남아있음
+ * ‼️ 같은 파일을 처음부터 다시 넣으면 imported 만큼은 두번 들어감
+ */
+@Getter
+public class MemberImportException extends RuntimeException {
+
+    private final long imported;
+
+    public MemberImportException(String message, long imported, Throwable cause) {
+        super(message + " (이미 등록된 회원 " + imported + "명)", cause);
+        this.imported = imported;
+    }
+}
@@ -0,0 +1,17 @@
+package data.jpa.springdatajpa.service;
+
+import lombok.Getter;
+
+@Getter
+public class MemberImportResult {
+
+    private final long imported;
+    private final int batches;
+    private final int createdTeams;
+
+    public MemberImportResult(long imported, int batches, int createdTeams) {
+        this.imported = imported;
+        this.batches = batches;
+        this.createdTeams = createdTeams;
+    }
+}
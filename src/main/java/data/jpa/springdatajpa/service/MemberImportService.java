@@ -0,0 +1,435 @@
+package data.jpa.springdatajpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import data.jpa.springdatajpa.dto.MemberImportRow;
+import data.jpa.springdatajpa.entity.AuditHistory;
+import data.jpa.springdatajpa.entity.CommitSequence;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberUsernameIndex;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 회원 대량 등록 (CSV / NDJSON 업로드), 엔티티와 영속성 컨텍스트를 거치지 않고 JDBC batch insert
+ * - 요청 스레드는 입력을 읽어 batch-size 개씩 자르고, 팀 이름 -> team_id (처음에 team 테이블 전체를 읽은 맵, 없는 팀은 만들어서 추가)와
+ *   member_id 블록(member_seq 에서 batch 크기만큼 예약, hibernate 의 pooled-lo 블록과 겹치지 않음)을 정해서 writer 로 넘김
+ * - writer 스레드 writers 개가 batch 하나를 트렌젝션 하나로 insert (rewriteBatchedStatements 로 multi-row insert) + 팀별 member_count 증가
+ *   넘겨둔 batch 는 writers * 2 개까지라 업로드가 커도 메모리는 일정
+ * - 엔티티 리스너를 거치지 않으므로 리스너가 하던 일을 여기서 직접 함
+ *   감사 컬럼 (등록 전체에 같은 시각/작성자, 트렌젝션당 한번인 AuditStamp 와 같은 방식), Team.memberCount (TeamMemberCountListener),
+ *   커밋된 batch 의 MemberUsernameIndex / audit_history / team 2차 캐시 / member, team 쿼리 캐시
+ * - 실패하면 남은 batch 는 버리고 이미 커밋된 batch 는 그대로 (MemberImportException.imported)
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    public enum Format {CSV, NDJSON}
+
+    private static final String INSERT_MEMBER = "insert into member (member_id, username, age, team_id, " +
+            "created_time, update_time, create_by, last_modified_by) values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TEAM = "insert into team (team_id, name, member_count, version) values (?, ?, 0, 0)";
+    private static final String ADD_MEMBER_COUNT = "update team set member_count = member_count + ? where team_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final EntityManagerFactory emf;
+    private final MemberUsernameIndex memberUsernameIndex;
+    private final ObjectProvider<AuditHistoryWriter> auditHistoryWriter;     //app.audit-history.enabled=false 면 없음
+    private final ObjectProvider<AuditorAware<String>> auditorAware;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int writers;
+    private final AtomicInteger threadSequence = new AtomicInteger();
+
+    public MemberImportService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               EntityManagerFactory emf,
+                               MemberUsernameIndex memberUsernameIndex,
+                               ObjectProvider<AuditHistoryWriter> auditHistoryWriter,
+                               ObjectProvider<AuditorAware<String>> auditorAware,
+                               ObjectMapper objectMapper,
+                               @Value("${app.member-import.batch-size:5000}") int batchSize,
+                               @Value("${app.member-import.writers:4}") int writers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.emf = emf;
+        this.memberUsernameIndex = memberUsernameIndex;
+        this.auditHistoryWriter = auditHistoryWriter;
+        this.auditorAware = auditorAware;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.writers = writers;
+    }
+
+    public MemberImportResult importMembers(InputStream in, Format format) throws IOException {
+        return importMembers(in, format, writers);
+    }
+
+    public MemberImportResult importMembers(InputStream in, Format format, int writers) throws IOException {
+        if (format == Format.CSV) {
+            return importMembers(new CsvRows(new CsvRecordReader(new InputStreamReader(in, StandardCharsets.UTF_8))), writers);
+        }
+        Iterator<MemberImportRow> rows = objectMapper.readerFor(MemberImportRow.class).readValues(in);
+        return importMembers(rows, writers);
+    }
+
+    public MemberImportResult importMembers(Iterator<MemberImportRow> rows, int writers) {
+        Import job = new Import(writers);
+        Throwable failure = null;
+        try {
+            List<MemberImportRow> batch = new ArrayList<>(batchSize);
+            while (rows.hasNext() && job.failure.get() == null) {
+                batch.add(rows.next());
+                if (batch.size() == batchSize) {
+                    job.submit(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty() && job.failure.get() == null) {
+                job.submit(batch);
+            }
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            job.finish();
+        }
+        if (failure == null) {
+            failure = job.failure.get();
+        }
+        if (failure != null) {
+            throw new MemberImportException("회원 대량 등록 실패", job.imported.get(), failure);
+        }
+        log.info("회원 대량 등록 {}명, batch {}개, 새 팀 {}개", job.imported.get(), job.batches, job.createdTeams);
+        return new MemberImportResult(job.imported.get(), job.batches, job.createdTeams);
+    }
+
+    //등록 하나의 상태, 팀 맵과 id 예약은 요청 스레드에서만 건드림
+    private class Import {
+
+        private final LocalDateTime now = LocalDateTime.now();
+        private final Timestamp timestamp = Timestamp.valueOf(now);
+        private final String auditor = currentAuditor();
+        private final Map<String, Long> teamIds = loadTeamIds();
+        private final ExecutorService executor;
+        private final Semaphore inFlight;
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private int batches;
+        private int createdTeams;
+
+        Import(int writers) {
+            int id = threadSequence.incrementAndGet();
+            AtomicInteger sequence = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(writers, writers, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "member-import-" + id + "-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.inFlight = new Semaphore(writers * 2);
+        }
+
+        void submit(List<MemberImportRow> rows) {
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("회원 대량 등록 중 인터럽트", e);
+            }
+            Batch batch;
+            try {
+                batch = prepare(rows);
+            } catch (RuntimeException | Error e) {
+                inFlight.release();
+                throw e;
+            }
+            batches++;
+            executor.execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        write(batch);
+                        imported.addAndGet(batch.rows.size());
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        //넘겨둔 batch 가 모두 끝날 때까지 기다림
+        void finish() {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.info("회원 대량 등록 batch 대기 중, 지금까지 {}명", imported.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        private Batch prepare(List<MemberImportRow> rows) {
+            Set<String> missing = new LinkedHashSet<>();
+            for (MemberImportRow row : rows) {
+                String teamName = teamName(row);
+                if (teamName != null && !teamIds.containsKey(teamName)) {
+                    missing.add(teamName);
+                }
+            }
+            if (!missing.isEmpty()) {
+                createTeams(missing);
+            }
+            Long[] teams = new Long[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                String teamName = teamName(rows.get(i));
+                teams[i] = teamName == null ? null : teamIds.get(teamName);
+            }
+            return new Batch(reserveIds("member_seq", rows.size()), rows, teams);
+        }
+
+        //같은 이름의 팀이 동시에 다른 등록에서 만들어질 수 있음 (team.name 은 유일 키가 아님)
+        private void createTeams(Set<String> names) {
+            List<String> created = new ArrayList<>(names);
+            List<AuditHistory> history = new ArrayList<>(created.size());
+            long firstId = tx.execute(status -> {
+                long lo = reserveIds("team_seq", created.size());
+                List<Object[]> args = new ArrayList<>(created.size());
+                for (int i = 0; i < created.size(); i++) {
+                    args.add(new Object[]{lo + i, created.get(i)});
+                    history.add(AuditHistory.team(AuditHistory.Operation.INSERT, lo + i, now, created.get(i)));
+                }
+                jdbcTemplate.batchUpdate(INSERT_TEAM, args);
+                markCommitted(history);
+                return lo;
+            });
+            for (int i = 0; i < created.size(); i++) {
+                teamIds.put(created.get(i), firstId + i);
+            }
+            createdTeams += created.size();
+            invalidateQueryCache("team");
+            auditHistoryWriter.ifAvailable(writer -> writer.enqueue(history));
+        }
+
+        private void write(Batch batch) {
+            List<MemberImportRow> rows = batch.rows;
+            Map<Long, Long> memberCounts = new TreeMap<>();     //팀 id 순서로 update -> writer 끼리 같은 팀 row 락을 엇갈려 잡지 않음
+            for (Long teamId : batch.teamIds) {
+                if (teamId != null) {
+                    memberCounts.merge(teamId, 1L, Long::sum);
+                }
+            }
+            List<AuditHistory> history = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                MemberImportRow row = rows.get(i);
+                history.add(AuditHistory.member(AuditHistory.Operation.INSERT, batch.firstId + i, now, auditor,
+                        row.username(), row.age() == null ? 0 : row.age(), batch.teamIds[i]));
+            }
+            tx.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_MEMBER, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        MemberImportRow row = rows.get(i);
+                        ps.setLong(1, batch.firstId + i);
+                        ps.setString(2, row.username());
+                        ps.setInt(3, row.age() == null ? 0 : row.age());
+                        if (batch.teamIds[i] == null) {
+                            ps.setNull(4, Types.BIGINT);
+                        } else {
+                            ps.setLong(4, batch.teamIds[i]);
+                        }
+                        ps.setTimestamp(5, timestamp);
+                        ps.setTimestamp(6, timestamp);
+                        ps.setString(7, auditor);
+                        ps.setString(8, auditor);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+                if (!memberCounts.isEmpty()) {
+                    List<Object[]> args = new ArrayList<>(memberCounts.size());
+                    memberCounts.forEach((teamId, count) -> args.add(new Object[]{count, teamId}));
+                    jdbcTemplate.batchUpdate(ADD_MEMBER_COUNT, args);
+                }
+                markCommitted(history);
+            });
+            afterCommit(batch, memberCounts.keySet(), history);
+        }
+
+        private void afterCommit(Batch batch, Set<Long> changedTeams, List<AuditHistory> history) {
+            //member_count 를 native update 로 바꿨으므로 캐시에 있는 Team 은 오래된 값
+            changedTeams.forEach(teamId -> emf.getCache().evict(Team.class, teamId));
+            invalidateQueryCache("member", "team");
+            for (int i = 0; i < batch.rows.size(); i++) {
+                String username = batch.rows.get(i).username();
+                if (username != null) {
+                    memberUsernameIndex.put(username, batch.firstId + i);
+                }
+            }
+            auditHistoryWriter.ifAvailable(writer -> writer.enqueue(history));
+        }
+    }
+
+    //JDBC 로 바꾼 테이블은 hibernate 가 모르므로 그 테이블을 읽는 쿼리 캐시 결과(findByUsername, getUsernameList, findDTOData 등)를 직접 무효화
+    private void invalidateQueryCache(String... tables) {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        try (Session session = sessionFactory.openSession()) {  //커넥션은 잡지 않음
+            sessionFactory.getCache().getTimestampsCache().invalidate(tables, (SharedSessionContractImplementor) session);
+        }
+    }
+
+    //커밋 순서는 트렌젝션 안(row 락을 들고 있을 때)에서 받음, AuditHistoryListener 와 같음
+    private static void markCommitted(List<AuditHistory> history) {
+        history.forEach(entry -> entry.markCommitted(CommitSequence.next()));
+    }
+
+    private record Batch(long firstId, List<MemberImportRow> rows, Long[] teamIds) {
+    }
+
+    //같은 이름의 팀이 여러개면 먼저 만들어진(id 가 작은) 팀으로
+    private Map<String, Long> loadTeamIds() {
+        Map<String, Long> teamIds = new HashMap<>();
+        jdbcTemplate.query("select team_id, name from team where name is not null order by team_id",
+                (RowCallbackHandler) rs -> teamIds.putIfAbsent(rs.getString(2), rs.getLong(1)));
+        return teamIds;
+    }
+
+    //시퀀스 테이블에서 n 개를 예약하고 시작값을 돌려줌, hibernate 는 다음 블록을 next_val 부터 받아감
+    private long reserveIds(String sequenceTable, int n) {
+        return tx.execute(status -> {
+            Long lo = jdbcTemplate.queryForObject("select next_val from " + sequenceTable + " for update", Long.class);
+            jdbcTemplate.update("update " + sequenceTable + " set next_val = ?", lo + n);
+            return lo;
+        });
+    }
+
+    private String currentAuditor() {
+        AuditorAware<String> aware = auditorAware.getIfAvailable();
+        return aware == null ? null : aware.getCurrentAuditor().orElse(null);
+    }
+
+    private static String teamName(MemberImportRow row) {
+        String teamName = row.teamName();
+        return teamName == null || teamName.isBlank() ? null : teamName;
+    }
+
+    //헤더의 username, age, teamName(또는 team) 열만 읽음 (대소문자 무시, 순서 상관없음)
+    private static class CsvRows implements Iterator<MemberImportRow> {
+
+        private final CsvRecordReader reader;
+        private final int username;
+        private final int age;
+        private final int teamName;
+        private String[] next;
+
+        CsvRows(CsvRecordReader reader) {
+            this.reader = reader;
+            String[] header = read();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV 가 비어있음 (헤더 필요)");
+            }
+            this.username = column(header, "username");
+            this.age = column(header, "age");
+            int teamName = column(header, "teamName");
+            this.teamName = teamName >= 0 ? teamName : column(header, "team");
+            if (username < 0) {
+                throw new IllegalArgumentException("CSV 헤더에 username 열이 없음");
+            }
+            this.next = read();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public MemberImportRow next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String[] record = next;
+            MemberImportRow row = new MemberImportRow(field(record, username), age(field(record, age)), field(record, teamName));
+            next = read();
+            return row;
+        }
+
+        private Integer age(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                return Integer.valueOf(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(reader.line() + "번째 줄: age 가 숫자가 아님 '" + value + "'", e);
+            }
+        }
+
+        private String[] read() {
+            try {
+                return reader.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String field(String[] record, int index) {
+            return index >= 0 && index < record.length ? record[index] : null;
+        }
+
+        private static int column(String[] header, String name) {
+            for (int i = 0; i < header.length; i++) {
+                if (header[i] != null && header[i].trim().equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
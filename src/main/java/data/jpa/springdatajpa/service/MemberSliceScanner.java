@@ -0,0 +1,64 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 나이가 같은 회원 전체를 slice 단위로 훑기 (findSliceByAge 로 한 페이지씩 요청하는 대신 서버에서 끝까지)
+ * - slice 사이는 offset 대신 keyset(username, member_id) 으로 이어가므로 뒤로 가도 느려지지 않음
+ * - 다음 slice 는 PrefetchingSliceIterator 가 백그라운드에서 미리 읽음, slice 마다 별도의 readOnly 트렌젝션 (복제 DB 설정시 복제 DB)
+ * - 동시에 진행되는 스캔 수는 max-concurrent-scans 로 제한, 넘으면 앞의 스캔이 끝날 때까지 첫 slice 를 기다림
+ */
+@Component
+public class MemberSliceScanner {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService executor;
+    private final int sliceSize;
+    private final int prefetchDepth;
+
+    public MemberSliceScanner(MemberRepository memberRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.slice-scan.slice-size:1000}") int sliceSize,
+                              @Value("${app.slice-scan.prefetch-depth:2}") int prefetchDepth,
+                              @Value("${app.slice-scan.max-concurrent-scans:4}") int maxConcurrentScans) {
+        this.memberRepository = memberRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.sliceSize = sliceSize;
+        this.prefetchDepth = prefetchDepth;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrentScans, maxConcurrentScans, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "slice-prefetch-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public PrefetchingSliceIterator<MemberDTO> scanByAge(int age) {
+        return scanByAge(age, sliceSize, prefetchDepth);
+    }
+
+    public PrefetchingSliceIterator<MemberDTO> scanByAge(int age, int sliceSize, int prefetchDepth) {
+        return PrefetchingSliceIterator.start(executor, sliceSize, prefetchDepth,
+                last -> readOnly.execute(status -> memberRepository.findDTOSliceByAge(age, last, sliceSize)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,91 @@
+package data.jpa.springdatajpa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락(@Version) 충돌시 작업 전체를 새 트렌젝션에서 다시 실행
+ * findLockByUsername(PESSIMISTIC_WRITE) 처럼 row 를 잡고 기다리지 않으므로 충돌이 드문 경우 커넥션을 오래 붙잡지 않음
+ * - 시도마다 REQUIRES_NEW 트렌젝션 = 새 영속성 컨텍스트라 엔티티를 다시 읽어서 최신 버전으로 다시 계산
+ *   (바깥 트렌젝션 안에서 부르더라도 바깥 트렌젝션과는 따로 커밋됨)
+ * - 대기 시간은 initial-backoff 부터 multiplier 배씩 늘리되 max-backoff 까지, 그 범위 안에서 랜덤 (동시에 다시 부딪히지 않도록)
+ * - max-attempts 번 모두 실패하면 마지막 OptimisticLockingFailureException 을 그대로 던짐
+ * <pre>
+ * optimisticRetryExecutor.execute(() -> {
+ *     Member member = memberRepository.findById(id).get();
+ *     member.setAge(member.getAge() + 1);
+ *     return member;
+ * });
+ * </pre>
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate attemptTransaction;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double multiplier;
+    private final Counter retries = Metrics.counter("optimistic.retries");
+    private final Counter exhausted = Metrics.counter("optimistic.retries.exhausted");
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   @Value("${app.optimistic-retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${app.optimistic-retry.initial-backoff:5ms}") Duration initialBackoff,
+                                   @Value("${app.optimistic-retry.max-backoff:200ms}") Duration maxBackoff,
+                                   @Value("${app.optimistic-retry.multiplier:2.0}") double multiplier) {
+        this.attemptTransaction = new TransactionTemplate(transactionManager);
+        this.attemptTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.multiplier = multiplier;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        long backoff = initialBackoff.toNanos();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attemptTransaction.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {  //em.flush() 를 직접 부르면 변환 전 예외
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("optimistic lock conflict, giving up after {} attempts", attempt);
+                    throw e;
+                }
+                retries.increment();
+                sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+                backoff = Math.min(maxBackoff.toNanos(), (long) (backoff * multiplier));
+            }
+        }
+    }
+
+    public void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package data.jpa.springdatajpa.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 서로 관계없는 조회들을 동시에 실행 -> 전체 응답시간이 합이 아니라 가장 느린 조회에 가까워짐
+ * 조회마다 별도의 readOnly 트렌젝션(= 별도 커넥션, 복제 DB 설정시 복제 DB)에서 실행
+ * 동시 실행 수는 커넥션 풀 크기의 절반으로 제한해서 다른 요청이 커넥션을 못 얻는 일이 없게 함
+ * (프로젝트가 Java 17 이라 가상 스레드 대신 고정 크기 스레드 풀 사용, 21 로 올리면 이 executor 만 바꾸면 됨)
+ */
+@Component
+public class ParallelReadExecutor {
+
+    private final ExecutorService executor;
+    private final TransactionTemplate readOnly;
+
+    public ParallelReadExecutor(PlatformTransactionManager transactionManager,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        int maxConcurrency = Math.max(1, poolSize / 2);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "parallel-read-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public <T> CompletableFuture<T> read(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnly.execute(status -> query.get()), executor);
+    }
+
+    //여러 조회의 결과를 모두 기다림, 하나라도 실패하면 그 예외를 그대로 던짐
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,128 @@
+package data.jpa.springdatajpa.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * slice 를 하나씩 꺼내 쓰는 동안 다음 slice 들을 백그라운드 스레드에서 미리 읽어두는 iterator
+ * - 다음 slice 는 이전 slice 의 마지막 row 다음부터 읽으므로 (keyset) DB 조회는 순서대로지만,
+ *   꺼내 쓰는 쪽(직렬화, 응답 쓰기)과 겹쳐서 실행되어 slice 마다 DB 왕복을 기다리지 않음
+ * - 미리 읽어두는 slice 수는 depth 로 제한, 큐가 차면 읽는 쪽이 기다림
+ *   -> 메모리에는 최대 (depth + 2) * sliceSize 개 row (큐에 depth 개 + 읽는 중 1개 + 꺼내 쓰는 중 1개)
+ * - fetch 는 slice 하나를 읽는 함수 (인자는 이전 slice 의 마지막 row, 첫 slice 면 null), 트렌젝션은 fetch 안에서 slice 마다
+ * - 끝까지 읽지 않고 그만둘 때는 close() (try-with-resources) 해야 백그라운드 읽기가 멈춤
+ */
+public class PrefetchingSliceIterator<T> implements Iterator<List<T>>, AutoCloseable {
+
+    private final BlockingQueue<Fetched<T>> queue;
+    private final Future<?> producer;
+    private volatile boolean closed;
+    private List<T> next;
+    private boolean finished;
+
+    private PrefetchingSliceIterator(ExecutorService executor, int sliceSize, int depth, Function<T, List<T>> fetch) {
+        this.queue = new ArrayBlockingQueue<>(depth);
+        this.producer = executor.submit(() -> produce(sliceSize, fetch));
+    }
+
+    public static <T> PrefetchingSliceIterator<T> start(ExecutorService executor, int sliceSize, int depth, Function<T, List<T>> fetch) {
+        if (sliceSize < 1 || depth < 1) {
+            throw new IllegalArgumentException("sliceSize, depth 는 1 이상이어야 합니다: " + sliceSize + ", " + depth);
+        }
+        return new PrefetchingSliceIterator<>(executor, sliceSize, depth, fetch);
+    }
+
+    private void produce(int sliceSize, Function<T, List<T>> fetch) {
+        T last = null;
+        try {
+            while (!closed) {
+                List<T> slice = fetch.apply(last);
+                boolean end = slice.size() < sliceSize;
+                queue.put(new Fetched<>(slice, end, null));
+                if (end) {
+                    return;
+                }
+                last = slice.get(slice.size() - 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();     //close() 로 취소됨
+        } catch (RuntimeException | Error e) {
+            //실패도 큐로 넘겨서 꺼내 쓰는 쪽에서 던짐 (안 넘기면 꺼내 쓰는 쪽이 계속 기다림)
+            RuntimeException failure = e instanceof RuntimeException runtime ? runtime : new IllegalStateException("slice 조회 실패", e);
+            try {
+                queue.put(new Fetched<>(List.of(), true, failure));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        Fetched<T> fetched;
+        try {
+            fetched = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("slice 를 기다리는 중 인터럽트", e);
+        }
+        finished = fetched.last();
+        if (fetched.failure() != null) {
+            throw fetched.failure();
+        }
+        if (fetched.slice().isEmpty()) {
+            finished = true;    //이전 slice 가 정확히 sliceSize 개로 끝난 경우
+            return false;
+        }
+        next = fetched.slice();
+        return true;
+    }
+
+    @Override
+    public List<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<T> slice = next;
+        next = null;
+        return slice;
+    }
+
+    /**
+     * slice 를 이어붙인 row 스트림, 스트림을 close 하면 이 iterator 도 close
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .flatMap(List::stream)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        finished = true;
+        next = null;
+        producer.cancel(true);      //큐가 차서 기다리는 중이면 바로 깨어나서 끝남
+        queue.clear();
+    }
+
+    private record Fetched<T>(List<T> slice, boolean last, RuntimeException failure) {
+    }
+}
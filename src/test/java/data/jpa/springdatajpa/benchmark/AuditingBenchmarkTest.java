@@ -0,0 +1,90 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.AuditingListener;
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.mapping.context.PersistentEntities;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 10만건 배치에서 감사 필드를 채우는 비용
+ * - listener only : 엔티티마다 감사 필드만 채움
+ *   legacy  = AuditingEntityListener 와 같은 AuditingHandler (엔티티마다 UUID.randomUUID() + 리플렉션)
+ *   current = AuditingListener (트렌젝션당 작성자 한번, flush 당 시각 한번, 메서드 직접 호출)
+ * - saveAllInChunks : 실제 insert 까지 포함한 전체 시간
+ * ./gradlew benchmark -Dbenchmark.auditRows=1000000
+ */
+@Tag("benchmark")
+@SpringBootTest
+class AuditingBenchmarkTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    ObjectProvider<AuditorAware<String>> auditorAware;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int rows = Integer.getInteger("benchmark.auditRows", 100_000);
+
+    @Test
+    public void auditCost() {
+        AuditingHandler legacy = new AuditingHandler(PersistentEntities.of());
+        legacy.setAuditorAware(() -> Optional.of(UUID.randomUUID().toString()));
+        AuditingListener current = new AuditingListener(auditorAware);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int round = 0; round < 3; round++) {   //앞의 두 번은 warm up
+            List<Member> members = newMembers("auditLegacy");
+            long alloc = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (Member member : members) {
+                legacy.markCreated(member);
+            }
+            report(round, "legacy", System.nanoTime() - start, threads.getCurrentThreadAllocatedBytes() - alloc);
+
+            List<Member> others = newMembers("auditCurrent");
+            long[] measured = transactionTemplate.execute(status -> {
+                long allocated = threads.getCurrentThreadAllocatedBytes();
+                long begin = System.nanoTime();
+                for (Member member : others) {
+                    current.prePersist(member);
+                }
+                return new long[]{System.nanoTime() - begin, threads.getCurrentThreadAllocatedBytes() - allocated};
+            });
+            report(round, "current", measured[0], measured[1]);
+        }
+
+        long start = System.nanoTime();
+        memberRepository.saveAllInChunks(newMembers("auditSave"));
+        System.out.printf("saveAllInChunks(%d) : %.1f ms%n", rows, (System.nanoTime() - start) / 1e6);
+    }
+
+    private void report(int round, String mode, long nanos, long allocated) {
+        if (round == 2) {
+            System.out.printf("%-8s : %8.1f ms, %6.1f ns/entity, %6.1f bytes/entity%n",
+                    mode, nanos / 1e6, (double) nanos / rows, (double) allocated / rows);
+        }
+    }
+
+    private List<Member> newMembers(String prefix) {
+        List<Member> members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            members.add(new Member(prefix + i, i % 100));
+        }
+        return members;
+    }
+}
@@ -0,0 +1,69 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 한건씩 save (insert 한번에 round-trip 한번) vs saveAllInChunks (JDBC batch + 청크 flush/clear) 처리량 비교
+ * ./gradlew benchmark -Dbenchmark.rows=200000
+ */
+@Tag("benchmark")
+@SpringBootTest
+class BatchInsertBenchmarkTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int rows = Integer.getInteger("benchmark.rows", 50_000);
+
+    @Test
+    public void oneByOneVsBatch() {
+        Team team = teamRepository.save(new Team("benchTeam"));
+
+        long oneByOne = measure(() -> {
+            em.unwrap(Session.class).setJdbcBatchSize(1);   //기존 방식: batch 없이 한 건씩
+            for (Member member : newMembers(team, "single")) {
+                memberRepository.save(member);
+            }
+        });
+        long batch = measure(() -> memberRepository.saveAllInChunks(newMembers(team, "batch")));
+
+        System.out.printf("one-by-one : %,10.0f rows/sec%n", rows / (oneByOne / 1e9));
+        System.out.printf("batch      : %,10.0f rows/sec%n", rows / (batch / 1e9));
+    }
+
+    private long measure(Runnable work) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> work.run());
+        return System.nanoTime() - start;
+    }
+
+    private List<Member> newMembers(Team team, String prefix) {
+        Team ref = em.getReference(Team.class, team.getId());
+        List<Member> members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Member member = new Member(prefix + i, i % 100);
+            member.setTeam(ref);    //changeTeam 은 team.members 컬렉션을 초기화하므로 FK 만 세팅
+            members.add(member);
+        }
+        return members;
+    }
+}
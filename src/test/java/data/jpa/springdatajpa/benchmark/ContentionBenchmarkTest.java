@@ -0,0 +1,113 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.service.OptimisticRetryExecutor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 인기 회원 몇 명(hot rows)을 여러 스레드가 동시에 수정할 때 스레드 수에 따른 처리량
+ * - pessimistic : findLockByUsername (select ... for update) 후 수정, 같은 행을 고른 스레드는 lock 을 기다림
+ * - optimistic  : @Version + OptimisticRetryExecutor, 충돌하면 새 트렌젝션으로 다시 (retries 는 재시도 수, failed 는 포기한 수)
+ * - skipLocked  : claimByAge (for update skip locked) 로 지금 안 잠긴 아무 행이나 가져와 수정 (작업 큐 방식, 같은 행을 고집하지 않음)
+ * ./gradlew benchmark -Dbenchmark.hotRows=4 -Dbenchmark.contentionSeconds=10
+ * 스레드 수는 커넥션 풀(기본 10)보다 크면 커넥션 대기까지 섞이므로 16 은 참고용
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=20")
+class ContentionBenchmarkTest {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+    private static final int HOT_AGE = 5_000;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    OptimisticRetryExecutor retryExecutor;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int hotRows = Integer.getInteger("benchmark.hotRows", 4);
+    long seconds = Long.getLong("benchmark.contentionSeconds", 5);
+
+    @Test
+    public void throughputByThreads() throws Exception {
+        List<String> usernames = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < hotRows; i++) {
+                usernames.add(memberRepository.save(new Member("contention" + i, HOT_AGE)).getUsername());
+            }
+        });
+        AtomicLong retries = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+
+        System.out.printf("%8s %12s %12s %12s %10s%n", "threads", "pessimistic", "optimistic", "skipLocked", "retries");
+        for (int threads : THREADS) {
+            double pessimistic = run(threads, () -> transactionTemplate.executeWithoutResult(status -> {
+                Member member = memberRepository.findLockByUsername(pick(usernames)).get(0);
+                member.setAge(member.getAge() + 1);
+            }));
+
+            retries.set(0);
+            double optimistic = run(threads, () -> {
+                try {
+                    long[] attempts = {0};
+                    retryExecutor.run(() -> {
+                        if (attempts[0]++ > 0) {
+                            retries.incrementAndGet();
+                        }
+                        Member member = memberRepository.findByUsername(pick(usernames)).get(0);
+                        member.setAge(member.getAge() + 1);
+                    });
+                } catch (OptimisticLockingFailureException e) {
+                    failed.incrementAndGet();
+                }
+            });
+
+            double skipLocked = run(threads, () -> transactionTemplate.executeWithoutResult(status -> {
+                for (Member member : memberRepository.claimByAge(HOT_AGE, PageRequest.of(0, 1))) {
+                    member.setAge(member.getAge() + 1);
+                }
+            }));
+
+            System.out.printf("%8d %10.0f/s %10.0f/s %10.0f/s %10d%n", threads, pessimistic, optimistic, skipLocked, retries.get());
+        }
+        System.out.printf("optimistic gave up : %d%n", failed.get());
+    }
+
+    //findByUsername 은 쿼리 캐시를 쓰지만 hot row 의 age 가 계속 바뀌므로 매번 무효화되어 DB 에서 읽음
+    private String pick(List<String> usernames) {
+        return usernames.get(ThreadLocalRandom.current().nextInt(usernames.size()));
+    }
+
+    private double run(int threads, Runnable operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong done = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    operation.run();
+                    done.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        return done.get() / (double) seconds;
+    }
+}
@@ -0,0 +1,75 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.repository.CountMode;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CountMode 별 페이지 조회 응답시간 (findByAge / findAll / findByNativeProjection)
+ * ./gradlew benchmark -Dbenchmark.members=2000000
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CountModeBenchmarkTest {
+
+    private static final int AGE = 44;
+    private static final int REPEAT = 20;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int members = Integer.getInteger("benchmark.members", 500_000);
+
+    @BeforeAll
+    void seed() {
+        long base = IdBlocks.reserve(jdbcTemplate, transactionTemplate, "member_seq", members);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            rows.add(new Object[]{base + i, i % 2 == 0 ? AGE : i % 100, "countBench" + i});
+            if (rows.size() == 5_000 || i == members - 1) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, age, username) values (?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.execute("analyze table member");   //ESTIMATED 가 보는 table_rows 갱신
+    }
+
+    @Test
+    public void latencyPerMode() {
+        Pageable pageable = PageRequest.of(10, 20, Sort.by("username"));
+        System.out.printf("%10s %18s %15s %25s%n", "mode", "findByAge(ms)", "findAll(ms)", "findByNativeProjection(ms)");
+        for (CountMode mode : CountMode.values()) {
+            double byAge = measure(() -> memberRepository.findByAge(AGE, pageable, mode));
+            double all = measure(() -> memberRepository.findAll(pageable, mode));
+            double nativeProjection = measure(() -> memberRepository.findByNativeProjection(pageable, mode));
+            System.out.printf("%10s %18.2f %15.2f %25.2f%n", mode, byAge, all, nativeProjection);
+        }
+    }
+
+    private double measure(Runnable query) {
+        query.run();    //warm up (CACHED 는 여기서 캐시됨)
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEAT; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / REPEAT;
+    }
+}
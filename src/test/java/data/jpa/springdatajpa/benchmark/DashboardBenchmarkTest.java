@@ -0,0 +1,71 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import data.jpa.springdatajpa.service.MemberDashboardService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대시보드 조회 4개를 순서대로 실행 vs 동시에 실행
+ * 동시 실행의 응답시간은 각 조회 시간의 합이 아니라 가장 느린 조회에 가까워야 함
+ */
+@Tag("benchmark")
+@SpringBootTest
+class DashboardBenchmarkTest {
+
+    private static final int REPEAT = 20;
+
+    @Autowired
+    MemberDashboardService memberDashboardService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    int members = Integer.getInteger("benchmark.members", 100_000);
+
+    @Test
+    public void sequentialVsParallel() {
+        List<Team> teams = teamRepository.saveAllInChunks(List.of(new Team("dashboardA"), new Team("dashboardB")));
+        List<Member> list = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            Member member = new Member("dashboard" + i, i % 50);
+            member.setTeam(teams.get(i % 2));
+            list.add(member);
+        }
+        memberRepository.saveAllInChunks(list);
+        PageRequest pageRequest = PageRequest.of(3, 20, Sort.by("username"));
+
+        double sequential = measure(() -> memberDashboardService.dashboardSequential(10, pageRequest));
+        double parallel = measure(() -> memberDashboardService.dashboard(10, pageRequest));
+        double page = measure(() -> memberRepository.findByAge(10, pageRequest));
+        double teamList = measure(() -> teamRepository.findAll());
+        double count = measure(() -> memberRepository.count());
+        double usernames = measure(() -> memberRepository.getUsernameList());
+
+        System.out.printf("findByAge %.2f ms, teams %.2f ms, count %.2f ms, usernames %.2f ms%n", page, teamList, count, usernames);
+        System.out.printf("sum of calls  : %.2f ms%n", page + teamList + count + usernames);
+        System.out.printf("slowest call  : %.2f ms%n", Math.max(Math.max(page, teamList), Math.max(count, usernames)));
+        System.out.printf("sequential    : %.2f ms%n", sequential);
+        System.out.printf("parallel      : %.2f ms%n", parallel);
+    }
+
+    private double measure(Runnable call) {
+        call.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEAT; i++) {
+            call.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / REPEAT;
+    }
+}
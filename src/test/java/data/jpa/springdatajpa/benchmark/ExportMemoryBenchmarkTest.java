@@ -0,0 +1,95 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.service.MemberExportService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 수를 늘려가며 export 하는 동안의 최대 heap 사용량을 비교, 행 수와 상관없이 거의 일정해야 함
+ * ./gradlew benchmark -Dbenchmark.exportRows=50000000
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ExportMemoryBenchmarkTest {
+
+    @Autowired
+    MemberExportService memberExportService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int maxRows = Integer.getInteger("benchmark.exportRows", 1_000_000);
+
+    @Test
+    public void heapStaysFlat() throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        List<Long> peaks = new ArrayList<>();
+        int seeded = 0;
+        System.out.printf("%12s %15s%n", "rows", "peak heap(MB)");
+        for (int rows = 1_000; rows <= maxRows; rows *= 10) {
+            seed(rows - seeded);
+            seeded = rows;
+
+            System.gc();
+            long baseline = memory.getHeapMemoryUsage().getUsed();
+            HeapSampler sampler = new HeapSampler(memory);
+            sampler.start();
+            memberExportService.exportNdjson(OutputStream.nullOutputStream());
+            sampler.interrupt();
+            sampler.join();
+
+            long peak = Math.max(0, sampler.peak - baseline);
+            peaks.add(peak);
+            System.out.printf("%12d %15.1f%n", rows, peak / 1024.0 / 1024.0);
+        }
+        //List 로 모았다면 행 수에 비례해서 커짐, 스트리밍이면 가장 큰 경우도 작은 경우와 크게 다르지 않아야 함
+        assertThat(peaks.get(peaks.size() - 1)).isLessThan(Math.max(peaks.get(0), 64L * 1024 * 1024) * 4);
+    }
+
+    private void seed(int n) {
+        long base = IdBlocks.reserve(jdbcTemplate, transactionTemplate, "member_seq", n);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            rows.add(new Object[]{base + i, i % 100, "export" + (base + i)});
+            if (rows.size() == 5_000 || i == n - 1) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, age, username) values (?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    private static class HeapSampler extends Thread {
+        private final MemoryMXBean memory;
+        private volatile long peak;
+
+        HeapSampler(MemoryMXBean memory) {
+            this.memory = memory;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package data.jpa.springdatajpa.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * JdbcTemplate 로 직접 insert 할 때 id 가 hibernate 의 pooled-lo 블록과 겹치지 않도록
+ * 시퀀스 테이블(member_seq, team_seq)에서 n 개를 예약해 시작값을 돌려준다.
+ */
+class IdBlocks {
+
+    static long reserve(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, String sequenceTable, long n) {
+        return transactionTemplate.execute(status -> {
+            Long lo = jdbcTemplate.queryForObject("select next_val from " + sequenceTable + " for update", Long.class);
+            jdbcTemplate.update("update " + sequenceTable + " set next_val = ?", lo + n);
+            return lo;
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 여러 스레드가 동시에 insert 할 때 처리량과 시퀀스 테이블(member_seq) 접근 횟수
+ * pooled-lo(allocationSize=1000) 이면 시퀀스 접근은 insert 1000건당 한번이라 스레드를 늘려도 lock 대기가 거의 없음
+ * ./gradlew benchmark -Dbenchmark.rowsPerThread=20000
+ */
+@Tag("benchmark")
+@SpringBootTest
+class IdGeneratorBenchmarkTest {
+
+    private static final int ALLOCATION_SIZE = 1000;   //Member 의 @SequenceGenerator 와 같은 값
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    int rowsPerThread = Integer.getInteger("benchmark.rowsPerThread", 10_000);
+
+    @Test
+    public void concurrentInsert() throws Exception {
+        System.out.printf("%8s %15s %18s%n", "threads", "rows/sec", "sequence fetches");
+        for (int threads = 1; threads <= 16; threads *= 2) {
+            long seqBefore = nextVal();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String prefix = "idbench" + threads + "-" + t + "-";
+                futures.add(executor.submit(() -> memberRepository.saveAllInChunks(newMembers(prefix))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            executor.shutdown();
+
+            long fetches = (nextVal() - seqBefore) / ALLOCATION_SIZE;
+            System.out.printf("%8d %15.0f %18d%n", threads, (double) threads * rowsPerThread / (elapsed / 1e9), fetches);
+        }
+    }
+
+    private long nextVal() {
+        return jdbcTemplate.queryForObject("select next_val from member_seq", Long.class);
+    }
+
+    private List<Member> newMembers(String prefix) {
+        List<Member> members = new ArrayList<>(rowsPerThread);
+        for (int i = 0; i < rowsPerThread; i++) {
+            members.add(new Member(prefix + i, i % 100));
+        }
+        return members;
+    }
+}
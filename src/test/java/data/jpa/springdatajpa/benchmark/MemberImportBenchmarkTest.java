@@ -0,0 +1,115 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import data.jpa.springdatajpa.service.MemberImportResult;
+import data.jpa.springdatajpa.service.MemberImportService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원 대량 등록 처리량 (rows/sec), 업로드 파일은 메모리에 미리 만들어 둠 (팀 TEAMS 개, 처음 등록할 때 팀을 만듦)
+ * - entity : 지금까지의 유일한 방법, Member 엔티티로 saveAllInChunks (영속성 컨텍스트 + 엔티티 리스너, 트렌젝션 하나)
+ * - csv / ndjson : MemberImportService, writer 수 별
+ * audit_history 는 기본으로 같이 쌓음, 등록만 보려면 -Dbenchmark.importAuditHistory=false
+ * ./gradlew benchmark -Dbenchmark.importRows=1000000
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "app.audit-history.enabled=${benchmark.importAuditHistory:true}")
+class MemberImportBenchmarkTest {
+
+    private static final int TEAMS = 100;
+
+    @Autowired
+    MemberImportService memberImportService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int rows = Integer.getInteger("benchmark.importRows", 200_000);
+    int entityRows = Integer.getInteger("benchmark.importEntityRows", 50_000);
+
+    @Test
+    public void importThroughput() throws IOException {
+        String run = "importBench" + Long.toString(System.nanoTime(), 36);
+        byte[] csv = csv(run + "Csv");
+        byte[] ndjson = ndjson(run + "Json");
+        System.out.printf("upload : csv %,d KB, ndjson %,d KB (%,d rows)%n", csv.length / 1024, ndjson.length / 1024, rows);
+
+        //첫 등록에서 팀을 만들고 JIT warm up
+        memberImportService.importMembers(new ByteArrayInputStream(csv), MemberImportService.Format.CSV, 4);
+        memberImportService.importMembers(new ByteArrayInputStream(ndjson), MemberImportService.Format.NDJSON, 4);
+
+        System.out.printf("%10s %8s %12s %14s%n", "mode", "writers", "ms", "rows/s");
+        entity(run);
+        for (int writers : new int[]{1, 2, 4, 8}) {
+            measure("csv", writers, csv, MemberImportService.Format.CSV);
+            measure("ndjson", writers, ndjson, MemberImportService.Format.NDJSON);
+        }
+    }
+
+    private void measure(String mode, int writers, byte[] upload, MemberImportService.Format format) throws IOException {
+        long start = System.nanoTime();
+        MemberImportResult result = memberImportService.importMembers(new ByteArrayInputStream(upload), format, writers);
+        long nanos = System.nanoTime() - start;
+        if (result.getImported() != rows) {
+            throw new IllegalStateException(mode + " 등록 수가 다름: " + result.getImported());
+        }
+        System.out.printf("%10s %8d %12.1f %,14.0f%n", mode, writers, nanos / 1e6, rows / (nanos / 1e9));
+    }
+
+    private void entity(String run) {
+        List<Team> teams = new ArrayList<>();
+        for (int t = 0; t < TEAMS; t++) {
+            teams.add(new Team(run + "EntityTeam" + t));
+        }
+        teamRepository.saveAll(teams);
+
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> members = new ArrayList<>(entityRows);
+            for (int i = 0; i < entityRows; i++) {
+                Member member = new Member(run + "Entity" + i, i % 100);
+                member.setTeam(em.getReference(Team.class, teams.get(i % TEAMS).getId()));
+                members.add(member);
+            }
+            memberRepository.saveAllInChunks(members);
+        });
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%10s %8d %12.1f %,14.0f%n", "entity", 1, nanos / 1e6, entityRows / (nanos / 1e9));
+    }
+
+    private byte[] csv(String prefix) {
+        StringBuilder csv = new StringBuilder(rows * 40).append("username,age,teamName\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(prefix).append(i).append(',').append(i % 100).append(',').append(prefix).append("Team").append(i % TEAMS).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] ndjson(String prefix) {
+        StringBuilder ndjson = new StringBuilder(rows * 70);
+        for (int i = 0; i < rows; i++) {
+            ndjson.append("{\"username\":\"").append(prefix).append(i).append("\",\"age\":").append(i % 100)
+                    .append(",\"teamName\":\"").append(prefix).append("Team").append(i % TEAMS).append("\"}\n");
+        }
+        return ndjson.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,116 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.CountMode;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GET /member 목록: 엔티티 페이지 -> MemberDTO 매핑 vs DTO 직접 조회 페이지당 응답시간 / 할당량 비교
+ * 엔티티 쪽은 teamName 까지 채워서 같은 응답을 만든다 (team 지연로딩 포함)
+ * ./gradlew benchmark -Dbenchmark.members=200000
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MemberListingBenchmarkTest {
+
+    private static final int TEAMS = 50;
+    private static final int PAGES = 200;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int members = Integer.getInteger("benchmark.members", 50_000);
+
+    @BeforeAll
+    void seed() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            teams.add(new Team("listBenchTeam" + i));
+        }
+        teams = teamRepository.saveAllInChunks(teams);
+
+        long base = IdBlocks.reserve(jdbcTemplate, transactionTemplate, "member_seq", members);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            rows.add(new Object[]{base + i, i % 100, String.format("listBench%09d", i), teams.get(i % TEAMS).getId()});
+            if (rows.size() == 5_000) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, age, username, team_id) values (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into member (member_id, age, username, team_id) values (?, ?, ?, ?)", rows);
+        }
+    }
+
+    @Test
+    public void entityVsDto() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.out.printf("%6s %8s %15s %15s %15s %15s%n", "size", "mode", "ms/page", "p99 ms", "KB/page", "rows/page");
+        for (int size : new int[]{20, 100, 500}) {
+            for (int round = 0; round < 2; round++) {   //첫 번째는 warm up
+                long[] entity = measure(threads, size, true);
+                long[] dto = measure(threads, size, false);
+                if (round == 1) {
+                    report(size, "entity", entity);
+                    report(size, "dto", dto);
+                }
+            }
+        }
+    }
+
+    //요청 하나 = 트랜잭션 하나 (OSIV 와 같이 페이지 읽고 매핑까지 같은 영속성 컨텍스트에서)
+    private long[] measure(com.sun.management.ThreadMXBean threads, int size, boolean entityPath) {
+        long[] nanos = new long[PAGES];
+        long allocated = 0;
+        long rows = 0;
+        for (int page = 0; page < PAGES; page++) {
+            PageRequest pageRequest = PageRequest.of(page, size, Sort.by("username"));
+            long alloc = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            Page<MemberDTO> result = transactionTemplate.execute(status -> entityPath
+                    ? memberRepository.findAll(pageRequest, CountMode.SKIP).map(m ->
+                            new MemberDTO(m.getId(), m.getUsername(), m.getTeam() == null ? null : m.getTeam().getName()))
+                    : memberRepository.findAllDTO(pageRequest, CountMode.SKIP));
+            nanos[page] = System.nanoTime() - start;
+            allocated += threads.getCurrentThreadAllocatedBytes() - alloc;
+            rows += result.getNumberOfElements();
+        }
+        Arrays.sort(nanos);
+        long total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        return new long[]{total / PAGES, nanos[PAGES * 99 / 100], allocated / PAGES, rows / PAGES};
+    }
+
+    private void report(int size, String mode, long[] measured) {
+        System.out.printf("%6d %8s %15.3f %15.3f %15.1f %15d%n",
+                size, mode, measured[0] / 1e6, measured[1] / 1e6, measured[2] / 1024.0, measured[3]);
+    }
+}
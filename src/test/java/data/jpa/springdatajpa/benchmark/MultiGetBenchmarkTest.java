@@ -0,0 +1,162 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.monitor.SqlScope;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 키 목록 조회(findAllById) 1 ~ 100k 키, 요청마다 키 수가 다를 때
+ * - exact   : in 목록을 키 수 그대로 한 쿼리로 (기존 findAllById / collectionParam)
+ * - chunked : MultiGetExecutor, 2의 거듭제곱 크기 + 1024 개씩 청크 (트렌젝션 밖이라 청크는 동시에)
+ * 캐시 hit 률은 실제 캐시의 통계
+ * - hql plan % : hibernate 의 쿼리 플랜 캐시 (Statistics.getQueryPlanCacheHitCount / MissCount)
+ *   HQL 문자열이 키라서 in 목록 크기와 상관없이 두 방식 모두 거의 hit, in 목록을 펼친 SQL 은 이 캐시에 없음
+ * - stmt %     : MySQL 서버 prepared statement (useServerPrepStmts + cachePrepStmts 로 드라이버가 SQL 문자열별로 재사용)
+ *   서버의 Com_stmt_prepare / Com_stmt_execute 차이로 계산, SQL 종류(shapes)가 많으면 매번 prepare
+ *   서버 prepared statement 는 바인딩이 65535 개까지라 exact 는 큰 목록에서 실패함
+ * ./gradlew benchmark -Dbenchmark.multiGetMembers=100000
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.data-source-properties.useServerPrepStmts=true",
+        "spring.datasource.hikari.data-source-properties.cachePrepStmts=true",
+        "spring.datasource.hikari.data-source-properties.prepStmtCacheSize=256",
+        "spring.datasource.hikari.data-source-properties.prepStmtCacheSqlLimit=65536"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MultiGetBenchmarkTest {
+
+    private static final int REQUESTS = 20;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int members = Integer.getInteger("benchmark.multiGetMembers", 100_000);
+    List<Long> ids = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        long base = IdBlocks.reserve(jdbcTemplate, transactionTemplate, "member_seq", members);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            ids.add(base + i);
+            rows.add(new Object[]{base + i, i % 100, "multiGetBench" + i});
+            if (rows.size() == 5_000 || i == members - 1) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, age, username) values (?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    @Test
+    public void planCacheAndLatency() {
+        Function<List<Long>, List<Member>> exact = keys -> transactionTemplate.execute(status ->
+                em.createQuery("select m from Member m where m.id in :ids", Member.class).setParameter("ids", keys).getResultList());
+        Function<List<Long>, List<Member>> chunked = memberRepository::findAllById;
+
+        System.out.printf("%10s %8s %12s %12s %12s %12s %12s%n", "keys", "mode", "avg ms", "statements", "shapes", "hql plan %", "stmt %");
+        for (int max = 1; max <= members; max *= 10) {
+            List<List<Long>> requests = requests(max);
+            measure(max, "exact", requests, exact);
+            measure(max, "chunked", requests, chunked);
+        }
+    }
+
+    //키 수를 (max/2, max] 에서 무작위로, 요청마다 in 목록 크기가 달라지게
+    private List<List<Long>> requests(int max) {
+        Random random = new Random(max);
+        List<List<Long>> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            int size = max == 1 ? 1 : max / 2 + 1 + random.nextInt(max - max / 2);
+            int from = random.nextInt(members - size + 1);
+            requests.add(ids.subList(from, from + size));
+        }
+        return requests;
+    }
+
+    private void measure(int max, String mode, List<List<Long>> requests, Function<List<Long>, List<Member>> query) {
+        try {
+            query.apply(requests.get(0));   //warm up
+        } catch (RuntimeException e) {
+            System.out.printf("%10d %8s failed: %s%n", max, mode, e.getMessage());
+            return;
+        }
+
+        long nanos = 0;
+        for (List<Long> keys : requests) {
+            long start = System.nanoTime();
+            int found = query.apply(keys).size();
+            nanos += System.nanoTime() - start;
+            if (found != keys.size()) {
+                throw new IllegalStateException(mode + " 결과 수가 다름: " + found + " / " + keys.size());
+            }
+        }
+
+        //SQL 문장 기록은 호출한 스레드에서만 되므로 트렌젝션 안에서 (청크를 차례대로) 한번 더 실행하면서 캐시 통계도 같이
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long planHits = statistics.getQueryPlanCacheHitCount();
+        long planMisses = statistics.getQueryPlanCacheMissCount();
+        Map<String, Long> server = serverStatements();
+        Set<String> shapes = new HashSet<>();
+        int statements = 0;
+        for (List<Long> keys : requests) {
+            List<String> executed = transactionTemplate.execute(status -> {
+                try (SqlScope scope = SqlScope.recording("multiGet")) {
+                    query.apply(keys);
+                    return new ArrayList<>(scope.getStatements());
+                }
+            });
+            for (String sql : executed) {
+                shapes.add(sql.replaceAll("\\b\\d+\\b", "?"));
+                statements++;
+            }
+        }
+        planHits = statistics.getQueryPlanCacheHitCount() - planHits;
+        planMisses = statistics.getQueryPlanCacheMissCount() - planMisses;
+        Map<String, Long> after = serverStatements();
+        long prepares = after.get("com_stmt_prepare") - server.get("com_stmt_prepare");
+        long executes = after.get("com_stmt_execute") - server.get("com_stmt_execute");
+
+        System.out.printf("%10d %8s %12.2f %12d %12d %12.1f %12.1f%n", max, mode, nanos / 1e6 / requests.size(),
+                statements, shapes.size(), percent(planHits, planHits + planMisses), percent(executes - prepares, executes));
+    }
+
+    //다른 세션의 문장도 섞이지만 벤치마크 중에는 이 테스트만 DB 를 씀 (SHOW 는 prepared statement 가 아니라 세지 않음)
+    private Map<String, Long> serverStatements() {
+        Map<String, Long> counters = new HashMap<>();
+        jdbcTemplate.query("show global status where variable_name in ('Com_stmt_prepare', 'Com_stmt_execute')",
+                (RowCallbackHandler) rs -> counters.put(rs.getString(1).toLowerCase(), rs.getLong(2)));
+        return counters;
+    }
+
+    private static double percent(long part, long total) {
+        return total <= 0 ? 0 : 100.0 * Math.max(part, 0) / total;
+    }
+}
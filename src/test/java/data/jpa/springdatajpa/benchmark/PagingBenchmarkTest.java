@@ -0,0 +1,86 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * offset 페이징(findByAge(Pageable)) vs keyset 페이징(findByAgeOrderByUsernameAscIdAsc) 깊이별 응답시간 비교
+ * ./gradlew benchmark -Dbenchmark.members=1000000
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PagingBenchmarkTest {
+
+    private static final int AGE = 33;
+    private static final int PAGE_SIZE = 20;
+    private static final int REPEAT = 5;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int members = Integer.getInteger("benchmark.members", 200_000);
+
+    @BeforeAll
+    void seed() {
+        long base = IdBlocks.reserve(jdbcTemplate, transactionTemplate, "member_seq", members);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            rows.add(new Object[]{base + i, AGE, String.format("bench%09d", i)});
+            if (rows.size() == 5_000) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, age, username) values (?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into member (member_id, age, username) values (?, ?, ?)", rows);
+        }
+    }
+
+    @Test
+    public void offsetVsKeyset() {
+        Sort sort = Sort.by("username").ascending().and(Sort.by("id").ascending());
+        System.out.printf("%10s %15s %15s%n", "page", "offset(ms)", "keyset(ms)");
+        for (int page = 1; (long) page * PAGE_SIZE < members; page *= 10) {
+            PageRequest pageRequest = PageRequest.of(page, PAGE_SIZE, sort);
+
+            //같은 위치에서 시작하도록 직전 row 의 키를 구해둠 (측정 밖)
+            Member last = memberRepository.findByAge(AGE, PageRequest.of(page * PAGE_SIZE - 1, 1, sort)).getContent().get(0);
+            ScrollPosition position = ScrollPosition.forward(Map.of("username", last.getUsername(), "id", last.getId()));
+
+            long offsetNanos = 0;
+            long keysetNanos = 0;
+            for (int i = 0; i < REPEAT; i++) {
+                long start = System.nanoTime();
+                Page<Member> offsetPage = memberRepository.findByAge(AGE, pageRequest);
+                offsetNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                Window<Member> window = memberRepository.findByAgeOrderByUsernameAscIdAsc(AGE, position, Limit.of(PAGE_SIZE));
+                keysetNanos += System.nanoTime() - start;
+
+                if (!offsetPage.getContent().get(0).getId().equals(window.getContent().get(0).getId())) {
+                    throw new IllegalStateException("offset / keyset 결과가 다름 page=" + page);
+                }
+            }
+            System.out.printf("%10d %15.2f %15.2f%n", page, offsetNanos / 1e6 / REPEAT, keysetNanos / 1e6 / REPEAT);
+        }
+    }
+}
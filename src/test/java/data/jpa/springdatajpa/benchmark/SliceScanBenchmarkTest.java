@@ -0,0 +1,152 @@
+package data.jpa.springdatajpa.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.service.MemberSliceScanner;
+import data.jpa.springdatajpa.service.PrefetchingSliceIterator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * 나이가 같은 회원 전체를 slice 단위로 읽고 JSON 으로 쓰는 시간
+ * - offset   : findSliceByAge 를 페이지 번호로 차례대로 (클라이언트가 한 페이지씩 요청하는 것과 같음)
+ * - keyset   : findDTOSliceByAge 로 차례대로, 미리 읽기 없음
+ * - prefetch : MemberSliceScanner, 쓰는 동안 다음 slice 를 미리 읽음 (depth 별)
+ * - dbOnly   : keyset 으로 읽기만 (직렬화 없음), prefetch 가 목표로 하는 DB 처리량
+ * ./gradlew benchmark -Dbenchmark.members=1000000
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SliceScanBenchmarkTest {
+
+    private static final int AGE = 77;
+    private static final int SLICE = 1000;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberSliceScanner scanner;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int members = Integer.getInteger("benchmark.members", 200_000);
+    TransactionTemplate readOnly;
+    ObjectWriter writer;
+    long expected;
+
+    @BeforeAll
+    void seed() {
+        readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        writer = objectMapper.writerFor(MemberDTO.class);
+
+        long base = IdBlocks.reserve(jdbcTemplate, transactionTemplate, "member_seq", members);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            rows.add(new Object[]{base + i, AGE, String.format("scanBench%09d", i)});
+            if (rows.size() == 5_000 || i == members - 1) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, age, username) values (?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        expected = memberRepository.countByAge(AGE);
+    }
+
+    @Test
+    public void scanWholeAge() {
+        System.out.printf("%14s %12s %12s%n", "mode", "ms", "rows/s");
+        for (int round = 0; round < 2; round++) {   //첫 번째는 warm up
+            boolean print = round == 1;
+            measure(print, "offset", this::offset);
+            measure(print, "keyset", () -> keyset(true));
+            for (int depth : new int[]{1, 2, 4}) {
+                measure(print, "prefetch(" + depth + ")", () -> prefetch(depth));
+            }
+            measure(print, "dbOnly", () -> keyset(false));
+        }
+    }
+
+    private void measure(boolean print, String mode, LongSupplier scan) {
+        long start = System.nanoTime();
+        long rows = scan.getAsLong();
+        long nanos = System.nanoTime() - start;
+        if (rows != expected) {
+            throw new IllegalStateException(mode + " 결과 수가 다름: " + rows);
+        }
+        if (print) {
+            System.out.printf("%14s %12.1f %12.0f%n", mode, nanos / 1e6, rows / (nanos / 1e9));
+        }
+    }
+
+    private long offset() {
+        long rows = 0;
+        Sort sort = Sort.by("username", "id");
+        for (int page = 0; ; page++) {
+            PageRequest pageRequest = PageRequest.of(page, SLICE, sort);
+            Slice<MemberDTO> slice = readOnly.execute(status -> memberRepository.findSliceByAge(AGE, pageRequest).map(MemberDTO::new));
+            rows += write(slice.getContent());
+            if (!slice.hasNext()) {
+                return rows;
+            }
+        }
+    }
+
+    private long keyset(boolean serialize) {
+        long rows = 0;
+        MemberDTO last = null;
+        while (true) {
+            MemberDTO after = last;
+            List<MemberDTO> slice = readOnly.execute(status -> memberRepository.findDTOSliceByAge(AGE, after, SLICE));
+            rows += serialize ? write(slice) : slice.size();
+            if (slice.size() < SLICE) {
+                return rows;
+            }
+            last = slice.get(slice.size() - 1);
+        }
+    }
+
+    private long prefetch(int depth) {
+        long rows = 0;
+        try (PrefetchingSliceIterator<MemberDTO> slices = scanner.scanByAge(AGE, SLICE, depth)) {
+            while (slices.hasNext()) {
+                rows += write(slices.next());
+            }
+        }
+        return rows;
+    }
+
+    //응답에 쓰는 것 대신 버림
+    private long write(List<MemberDTO> slice) {
+        try {
+            for (MemberDTO member : slice) {
+                writer.writeValue(OutputStream.nullOutputStream(), member);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return slice.size();
+    }
+}
@@ -0,0 +1,84 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * /member 목록처럼 회원 페이지를 읽고 member.team 을 따라가는 경우 요청당 DB 쿼리 수
+ * 첫 요청(cold)은 team 을 DB 에서 읽지만 이후(warm)는 2차 캐시에서 가져와야 함
+ */
+@Tag("benchmark")
+@SpringBootTest
+class TeamCacheBenchmarkTest {
+
+    private static final int TEAMS = 20;
+    private static final int PAGE_SIZE = 50;
+    private static final int REQUESTS = 100;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void roundTripsPerListing() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            teams.add(new Team("cacheBenchTeam" + i));
+        }
+        teams = teamRepository.saveAllInChunks(teams);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE * 10; i++) {
+            Member member = new Member("cacheBench" + i, 10);
+            member.setTeam(teams.get(i % TEAMS));
+            members.add(member);
+        }
+        memberRepository.saveAllInChunks(members);
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        emf.getCache().evict(Team.class);
+
+        long cold = listing(statistics, 0);
+        long start = System.nanoTime();
+        long warm = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            warm += listing(statistics, i % 10);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("cold request : %d statements%n", cold);
+        System.out.printf("warm request : %.1f statements, %.2f ms%n", (double) warm / REQUESTS, elapsed / 1e6 / REQUESTS);
+        System.out.printf("L2 hit=%d miss=%d put=%d%n", statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount());
+    }
+
+    //한 요청 = 한 트렌젝션(영속성 컨텍스트), 회원 페이지 조회 후 팀 이름까지 접근
+    private long listing(Statistics statistics, int page) {
+        long before = statistics.getPrepareStatementCount();
+        transactionTemplate.executeWithoutResult(status -> {
+            Page<Member> result = memberRepository.findAll(PageRequest.of(page, PAGE_SIZE, Sort.by("username")));
+            result.forEach(member -> member.getTeam().getName());
+        });
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
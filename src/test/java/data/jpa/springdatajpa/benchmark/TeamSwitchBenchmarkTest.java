@@ -0,0 +1,93 @@
+package data.jpa.springdatajpa.benchmark;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 팀원이 1천/1만/10만 명인 팀으로 회원 한 명의 팀을 바꿀 때 걸리는 시간과 할당 바이트
+ * legacy : 예전처럼 team.getMembers() 를 초기화하고 add (팀원 수에 비례)
+ * current : changeTeam 이 초기화되지 않은 컬렉션은 건드리지 않고 memberCount 만 DB 에서 증감 (팀 크기와 무관)
+ * ./gradlew benchmark -Dbenchmark.teamSwitchRepeat=20
+ */
+@Tag("benchmark")
+@SpringBootTest
+class TeamSwitchBenchmarkTest {
+
+    private static final int[] TEAM_SIZES = {1_000, 10_000, 100_000};
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    int repeat = Integer.getInteger("benchmark.teamSwitchRepeat", 10);
+
+    @Test
+    public void switchCost() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.out.printf("%10s %10s %12s %15s%n", "team size", "mode", "avg(ms)", "alloc(KB)");
+        for (int size : TEAM_SIZES) {
+            Long[] teamIds = transactionTemplate.execute(status -> new Long[]{
+                    teamRepository.save(new Team("switchBig" + size)).getId(),
+                    teamRepository.save(new Team("switchSmall" + size)).getId()});
+            seed(teamIds[0], size);
+            Long memberId = transactionTemplate.execute(status ->
+                    memberRepository.save(new Member("switcher" + size, 20)).getId());
+
+            for (boolean legacy : new boolean[]{true, false}) {
+                switchTeam(memberId, teamIds[0], legacy);    //warm up
+                switchTeam(memberId, teamIds[1], legacy);
+                long alloc = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                for (int i = 0; i < repeat; i++) {
+                    switchTeam(memberId, teamIds[i % 2 == 0 ? 0 : 1], legacy);
+                }
+                long elapsed = System.nanoTime() - start;
+                alloc = threads.getCurrentThreadAllocatedBytes() - alloc;
+                System.out.printf("%10d %10s %12.2f %15.1f%n", size, legacy ? "legacy" : "current",
+                        elapsed / 1e6 / repeat, alloc / 1024.0 / repeat);
+            }
+        }
+    }
+
+    private void switchTeam(Long memberId, Long teamId, boolean legacy) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = memberRepository.findById(memberId).get();
+            Team team = teamRepository.findById(teamId).get();
+            if (legacy) {
+                team.getMembers().size();   //예전 changeTeam 의 team.getMembers().add(this) 와 같은 초기화
+            }
+            member.changeTeam(team);
+        });
+    }
+
+    //member_count 는 리스너를 거치지 않으므로 직접 맞춰줌
+    private void seed(Long teamId, int n) {
+        long base = IdBlocks.reserve(jdbcTemplate, transactionTemplate, "member_seq", n);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            rows.add(new Object[]{base + i, 30, "switchSeed" + (base + i), teamId});
+            if (rows.size() == 5_000 || i == n - 1) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, age, username, team_id) values (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.update("update team set member_count = member_count + ? where team_id = ?", n, teamId);
+    }
+}
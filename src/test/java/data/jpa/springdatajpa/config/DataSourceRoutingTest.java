@@ -0,0 +1,76 @@
+package data.jpa.springdatajpa.config;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.MemberUsernameIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 내장 H2 두개를 원본/복제 DB 로 사용, 스키마(ddl-auto)는 원본에만 만들어짐
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:primarydb;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.datasource.replicas[0].url=jdbc:h2:mem:replicadb;MODE=MySQL;DB_CLOSE_DELAY=-1",
+})
+class DataSourceRoutingTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberUsernameIndex memberUsernameIndex;
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        assertThat(readOnly.execute(status -> currentDatabase())).isEqualToIgnoringCase("replicadb");
+        assertThat(readWrite.execute(status -> currentDatabase())).isEqualToIgnoringCase("primarydb");
+    }
+
+    @Test
+    public void lockQueryStaysOnPrimary() {
+        //복제 DB 에는 member 테이블이 없으므로 복제 DB 로 가면 실패함
+        assertThatNoException().isThrownBy(() -> memberRepository.findLockByUsername("nobody"));
+    }
+
+    @Test
+    public void derivedFinderGoesToReplica() {
+        //복제 DB 에만 있는 행, 원본으로 가면 찾을 수 없음
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:replicadb;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        replica.execute("create table if not exists member (member_id bigint primary key, username varchar(255), " +
+                "age int not null, team_id bigint, version bigint default 0 not null, created_time timestamp, " +
+                "update_time timestamp, create_by varchar(255), last_modified_by varchar(255))");
+        replica.update("merge into member (member_id, username, age) key (member_id) values (?, ?, ?)", 1, "replicaOnly", 30);
+
+        assertThat(memberRepository.findListByUsername("replicaOnly")).extracting(Member::getAge).containsExactly(30);
+    }
+
+    @Test
+    public void usernameIndexBuildsFromPrimary() {
+        Long id = memberRepository.save(new Member("routingIndex", 10)).getId();
+        memberUsernameIndex.rebuild();
+        assertThat(memberUsernameIndex.findIds("routingIndex")).containsExactly(id);
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("select database()", String.class);
+    }
+}
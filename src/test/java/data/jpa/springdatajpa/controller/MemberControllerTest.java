@@ -0,0 +1,43 @@
+package data.jpa.springdatajpa.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void malformedCursorIsBadRequest() throws Exception {
+        String noSeparator = encode("member1");
+        String notNumber = encode("member1\nx");    //id 자리가 숫자가 아님
+
+        mockMvc.perform(get("/member").param("after", "%%%garbage"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/member").param("after", noSeparator))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/member").param("after", notNumber))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/member").param("after", ""))     //빈 커서는 첫 페이지
+                .andExpect(status().isOk());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,52 @@
+package data.jpa.springdatajpa.monitor;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry registry;
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void rowsAndEntitiesPerMethod() {
+        memberRepository.save(new Member("metricsA", 10));
+        memberRepository.save(new Member("metricsA", 20));
+        em.flush();
+        em.clear();
+
+        //같은 컨텍스트를 쓰는 다른 테스트에서도 기록되므로 호출 전후 차이로 확인
+        DistributionSummary rows = registry.summary("repository.rows", "repository", "MemberRepository", "method", "findListByUsername");
+        DistributionSummary loaded = registry.summary("repository.entities.loaded", "repository", "MemberRepository", "method", "findListByUsername");
+        double rowsBefore = rows.totalAmount();
+        double loadedBefore = loaded.totalAmount();
+
+        memberRepository.findListByUsername("metricsA");
+
+        assertThat(rows.totalAmount() - rowsBefore).isEqualTo(2);
+        assertThat(loaded.totalAmount() - loadedBefore).isEqualTo(2);
+
+        //save 안에서 일어난 flush 가 아니어도 flush 시간은 기록됨
+        Timer flush = registry.find("hibernate.session.flush").timer();
+        assertThat(flush).isNotNull();
+        assertThat(registry.get("spring.data.repository.invocations")
+                .tag("repository", "MemberRepository").tag("method", "findListByUsername").timer().count()).isPositive();
+    }
+}
@@ -0,0 +1,128 @@
+package data.jpa.springdatajpa.monitor;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.sql-budget.fail-on-exceed=true")
+@AutoConfigureMockMvc
+@Import(SqlBudgetTest.OverBudgetController.class)
+@Transactional
+class SqlBudgetTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    SqlBudgetMonitor monitor;
+    @Autowired
+    MockMvc mockMvc;
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void detectNPlusOne() {
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("budgetTeam" + i);
+            em.persist(team);
+            em.persist(new Member("budget" + i, 10, team));
+        }
+        em.flush();
+        em.clear();
+
+        try (SqlScope scope = SqlScope.open("lazy")) {
+            List<Member> members = memberRepository.findMemberCustom();
+            for (Member member : members) {
+                if (member.getUsername().startsWith("budget")) {
+                    member.getTeam().getName();     //team 을 하나씩 select
+                }
+            }
+            assertThat(scope.getStatementCount()).isGreaterThanOrEqualTo(4);
+            assertThat(scope.findRepeatedStatements(3)).hasSize(1);
+        }
+
+        em.clear();
+        try (SqlScope scope = SqlScope.open("fetchJoin")) {
+            memberRepository.findMemberFetchJoin().stream()
+                    .filter(member -> member.getTeam() != null)
+                    .forEach(member -> member.getTeam().getName());
+            assertThat(scope.getStatementCount()).isEqualTo(1);     //@SqlBudget(1) 이내라 예외 없음
+            assertThat(scope.findRepeatedStatements(3)).isEmpty();
+        }
+    }
+
+    @Test
+    public void failOnExceed() {
+        try (SqlScope scope = SqlScope.open("overBudget")) {
+            memberRepository.count();
+            memberRepository.count();
+            scope.close();
+            assertThatThrownBy(() -> monitor.report("test", scope, 1, true))
+                    .isInstanceOf(SqlBudgetExceededException.class);
+        }
+    }
+
+    @Test
+    public void httpRequestWithinBudget() throws Exception {
+        mockMvc.perform(get("/member").param("page", "1").param("size", "5"))
+                .andExpect(status().isOk());
+    }
+
+    //fail-on-exceed 면 본문을 쓰기 전에 실패해야 클라이언트가 알 수 있음
+    @Test
+    public void httpRequestOverBudgetFails() throws Exception {
+        mockMvc.perform(get("/test/sql-budget/over"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().string(""));
+    }
+
+    //StreamingResponseBody 는 비동기라 첫 dispatch 에서 postHandle 이 호출되지 않음, 요청 스레드에 범위가 남으면 안 됨
+    @Test
+    public void streamingResponseDoesNotLeakScope() throws Exception {
+        MvcResult result = mockMvc.perform(get("/member/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(SqlScope.current()).isNull();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        assertThat(SqlScope.current()).isNull();
+    }
+
+    @RestController
+    static class OverBudgetController {
+
+        private final MemberRepository memberRepository;
+
+        OverBudgetController(MemberRepository memberRepository) {
+            this.memberRepository = memberRepository;
+        }
+
+        @GetMapping("/test/sql-budget/over")
+        @SqlBudget(1)
+        public Map<String, Long> overBudget() {
+            return Map.of("first", memberRepository.count(), "second", memberRepository.count());
+        }
+    }
+}
@@ -1,22 +1,41 @@
 package data.jpa.springdatajpa.repository;
 
+import data.jpa.springdatajpa.dto.CursorPage;
+import data.jpa.springdatajpa.dto.MemberCursor;
 import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.dto.MemberRow;
 import data.jpa.springdatajpa.entity.Member;
 import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.monitor.SqlScope;
+import data.jpa.springdatajpa.service.ParallelReadExecutor;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.jpa.EntityManagerHolder;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -29,6 +48,12 @@ class MemberRepositoryTest {
     MemberRepository memberRepository;
     @Autowired
     TeamRepository teamRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ParallelReadExecutor parallelReadExecutor;
+    @Autowired
+    EntityManagerFactory emf;
     @PersistenceContext
     EntityManager em;           //같은 트렌젝션 안이면 같은 엔티티 매니저를 사용
 
@@ -144,6 +169,53 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void multiGet() {
+        Member m1 = new Member("multiGet1", 0);
+        Member m2 = new Member("multiGet2", 0);
+        Member m3 = new Member("multiGet3", 0);
+        memberRepository.saveAll(List.of(m1, m2, m3));
+        em.flush();
+        em.clear();
+
+        //입력 순서대로, 중복 키는 한번만, 없는 키는 빠짐
+        try (SqlScope scope = SqlScope.recording("multiGet")) {
+            List<Member> byId = memberRepository.findAllById(List.of(m3.getId(), m1.getId(), m3.getId(), m2.getId()));
+            assertThat(byId).extracting(Member::getId).containsExactly(m3.getId(), m1.getId(), m2.getId());
+
+            //키 3개 -> in 목록은 마지막 키를 반복해서 4개
+            String sql = scope.getStatements().get(0);
+            String inList = sql.substring(sql.indexOf("in (") + 4, sql.indexOf(')', sql.indexOf("in (")));
+            assertThat(inList.split(",")).hasSize(4);
+        }
+        assertThat(memberRepository.collectionParam(List.of("multiGet2", "multiGetNone", "multiGet1")))
+                .extracting(Member::getUsername).containsExactly("multiGet2", "multiGet1");
+
+        assertThat(MultiGetExecutor.padded(new ArrayList<>(List.of(1)))).containsExactly(1);
+        assertThat(MultiGetExecutor.padded(new ArrayList<>(List.of(1, 2, 3, 4, 5)))).containsExactly(1, 2, 3, 4, 5, 5, 5, 5);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)    //트렌젝션 없이 open-in-view 처럼 엔티티 매니저만 묶음
+    public void multiGetOpenInView() {
+        MultiGetExecutor executor = new MultiGetExecutor(parallelReadExecutor, transactionManager, emf, 2, true);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        EntityManager openInView = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(openInView));
+        try {
+            //청크 3개지만 요청 스레드의 영속성 컨텍스트에 담아야 하므로 병렬로 나가지 않음
+            List<Long> found = executor.getAll(List.of(1L, 2L, 3L, 4L, 5L), chunk -> {
+                threads.add(Thread.currentThread());
+                return chunk;
+            }, key -> key);
+            assertThat(found).containsExactly(1L, 2L, 3L, 4L, 5L);
+            assertThat(threads).containsExactly(Thread.currentThread());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            openInView.close();
+        }
+    }
+
     @Test
     public void returnType() {
         Member memberA = new Member("memberA", 10);
@@ -206,6 +278,178 @@ class MemberRepositoryTest {
         assertThat(byAge.hasNext()).isTrue();
     }
 
+    @Test
+    public void pagingCountModeTest() {
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("count" + i, 73));
+        }
+        em.flush();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by("username"));
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        Page<Member> exact = memberRepository.findByAge(73, pageRequest, CountMode.EXACT);
+        assertThat(exact.getTotalElements()).isEqualTo(5);
+
+        //CACHED: 두번째 부터는 count 쿼리가 나가지 않음
+        memberRepository.findByAge(73, pageRequest, CountMode.CACHED);
+        long queries = statistics.getPrepareStatementCount();
+        Page<Member> cached = memberRepository.findByAge(73, pageRequest, CountMode.CACHED);
+        assertThat(cached.getTotalElements()).isEqualTo(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queries + 1);
+
+        //SKIP: 마지막 페이지는 가져온 갯수로 전체 갯수를 계산
+        queries = statistics.getPrepareStatementCount();
+        Page<Member> last = memberRepository.findByAge(73, PageRequest.of(1, 3, Sort.by("username")), CountMode.SKIP);
+        assertThat(last.getContent().size()).isEqualTo(2);
+        assertThat(last.getTotalElements()).isEqualTo(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queries + 1);
+
+        //SKIP: 마지막 페이지가 아니어도 count 쿼리 없이 본 row + 1 (다음 페이지가 있다는 것만)
+        queries = statistics.getPrepareStatementCount();
+        Page<Member> skipped = memberRepository.findByAge(73, pageRequest, CountMode.SKIP);
+        assertThat(skipped.getTotalElements()).isEqualTo(4);
+        assertThat(skipped.hasNext()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queries + 1);
+
+        //ESTIMATED: 추정치라도 이미 본 row 보다 작게 나오지 않음
+        Page<Member> estimated = memberRepository.findByAge(73, pageRequest, CountMode.ESTIMATED);
+        assertThat(estimated.getTotalElements()).isGreaterThanOrEqualTo(4);
+        assertThat(estimated.hasNext()).isTrue();
+    }
+
+    @Test
+    public void keysetPagingTest() {
+        memberRepository.save(new Member("m1", 77));
+        memberRepository.save(new Member("m2", 77));
+        memberRepository.save(new Member("m2", 77));   //username 이 같아도 id 로 위치가 구분되어야 함
+        memberRepository.save(new Member("m3", 77));
+        memberRepository.save(new Member("m4", 78));
+
+        Window<Member> first = memberRepository.findByAgeOrderByUsernameAscIdAsc(77, ScrollPosition.keyset(), Limit.of(2));
+        assertThat(first.getContent()).extracting("username").containsExactly("m1", "m2");
+        assertThat(first.hasNext()).isTrue();
+
+        //커서 문자열로 왕복해도 같은 위치에서 이어져야 함
+        String cursor = CursorPage.of(first, MemberDTO::new).getNext();
+        Window<Member> second = memberRepository.findByAgeOrderByUsernameAscIdAsc(77, MemberCursor.toScrollPosition(cursor), Limit.of(2));
+        assertThat(second.getContent()).extracting("username").containsExactly("m2", "m3");
+        assertThat(second.getContent().get(0).getId()).isGreaterThan(first.getContent().get(1).getId());
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void saveAllInChunksTest() {
+        List<Team> teams = teamRepository.saveAllInChunks(List.of(new Team("chunkTeamA"), new Team("chunkTeamB")));
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 1234; i++) {   //청크 크기(500)의 배수가 아닌 갯수
+            members.add(new Member("chunk" + i, 55, teams.get(i % 2)));
+        }
+        List<Member> saved = memberRepository.saveAllInChunks(members);
+
+        //clear 되었으므로 다시 조회했을 때 DB 에서 읽어와야 함
+        assertThat(em.contains(saved.get(0))).isFalse();
+        Member findMember = memberRepository.findById(saved.get(1233).getId()).get();
+        assertThat(findMember.getTeam().getName()).isEqualTo("chunkTeamB");
+        assertThat(findMember.getCreatedTime()).isNotNull();
+        assertThat(findMember.getCreateBy()).isNotNull();
+        assertThat(memberRepository.findSliceByAge(55, PageRequest.of(0, 2000)).getContent().size()).isEqualTo(1234);
+    }
+
+    @Test
+    public void streamTest() {
+        Team team = new Team("streamTeam");
+        teamRepository.save(team);
+        memberRepository.save(new Member("stream1", 10, team));
+        memberRepository.save(new Member("stream2", 10));
+        em.flush();
+        em.clear();
+
+        try (Stream<MemberDTO> stream = memberRepository.streamAllDTO()) {
+            List<MemberDTO> result = stream.filter(m -> m.getUsername().startsWith("stream")).toList();
+            assertThat(result).extracting("teamName").containsExactlyInAnyOrder("streamTeam", null);
+        }
+        //DTO 로 조회했으므로 영속성 컨텍스트에 엔티티가 남지 않음
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void teamSecondLevelCache() {
+        Team team = teamRepository.save(new Team("cachedTeam"));
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        teamRepository.findById(team.getId()).get();   //DB 에서 읽고 2차 캐시에 넣음
+        em.clear();
+        long hit = statistics.getSecondLevelCacheHitCount();
+        long queries = statistics.getPrepareStatementCount();
+
+        Team findTeam = teamRepository.findById(team.getId()).get();
+
+        assertThat(findTeam.getName()).isEqualTo("cachedTeam");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(hit + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queries);  //DB 로 쿼리가 나가지 않음
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)    //쿼리 캐시는 커밋된 변경 기준으로 무효화되므로 트렌젝션을 나눠서 확인
+    public void queryCache() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> memberRepository.save(new Member("queryCache", 61)));
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        memberRepository.findByUsername("queryCache");     //miss -> 캐시에 넣음
+        long hit = statistics.getQueryCacheHitCount();
+        long miss = statistics.getQueryCacheMissCount();
+
+        List<Member> cached = memberRepository.findByUsername("queryCache");
+        assertThat(cached.get(0).getAge()).isEqualTo(61);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hit + 1);
+
+        //벌크 업데이트가 커밋되면 member 테이블을 쓰는 캐시 결과는 무효화
+        tx.executeWithoutResult(status -> memberRepository.bulkAgePlus(61));
+        List<Member> result = memberRepository.findByUsername("queryCache");
+        assertThat(result.get(0).getAge()).isEqualTo(62);
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(miss + 1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)    //팀원 수는 커밋 직전에 반영되므로 트렌젝션을 나눠서 확인
+    public void teamMemberCount() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(status -> {
+            Team teamA = teamRepository.save(new Team("countTeamA"));
+            Team teamB = teamRepository.save(new Team("countTeamB"));
+            Member member1 = new Member("countMember1", 10, teamA);
+            Member member2 = new Member("countMember2", 10, teamA);
+            memberRepository.save(member1);
+            memberRepository.save(member2);
+            return new Long[]{teamA.getId(), teamB.getId(), member1.getId()};
+        });
+        assertThat(teamRepository.findById(ids[0]).get().getMemberCount()).isEqualTo(2);
+
+        //팀 변경시 Team.members 컬렉션은 초기화되지 않음
+        tx.executeWithoutResult(status -> {
+            Team teamA = teamRepository.findById(ids[0]).get();
+            Member member = memberRepository.findById(ids[2]).get();
+            member.changeTeam(teamRepository.findById(ids[1]).get());
+            assertThat(Hibernate.isInitialized(teamA.getMembers())).isFalse();
+        });
+        assertThat(teamRepository.findById(ids[0]).get().getMemberCount()).isEqualTo(1);
+        assertThat(teamRepository.findById(ids[1]).get().getMemberCount()).isEqualTo(1);
+
+        tx.executeWithoutResult(status -> memberRepository.deleteById(ids[2]));
+        assertThat(teamRepository.findById(ids[1]).get().getMemberCount()).isZero();
+
+        //롤백되면 반영되지 않음
+        tx.executeWithoutResult(status -> {
+            memberRepository.save(new Member("countMember3", 10, teamRepository.findById(ids[0]).get()));
+            status.setRollbackOnly();
+        });
+        assertThat(teamRepository.findById(ids[0]).get().getMemberCount()).isEqualTo(1);
+    }
+
     @Test
     public void bulkTest() {
         memberRepository.save(new Member("m1", 10));
@@ -301,6 +545,40 @@ class MemberRepositoryTest {
     }
     
     
+    @Test
+    public void auditingOncePerFlush() {
+        Member member1 = memberRepository.save(new Member("audit1", 10));
+        Member member2 = memberRepository.save(new Member("audit2", 10));
+        em.flush();
+
+        //같은 트렌젝션, 같은 flush 안에서는 작성자/시각을 한번만 구함
+        assertThat(member1.getCreateBy()).isNotNull().isEqualTo(member2.getCreateBy());
+        assertThat(member1.getCreatedTime()).isNotNull().isEqualTo(member2.getCreatedTime());
+        assertThat(member1.getUpdateTime()).isEqualTo(member1.getCreatedTime());
+
+        member1.setAge(11);
+        em.flush();     //@PreUpdate, 새 flush 이므로 시각을 다시 구함
+        assertThat(member1.getUpdateTime()).isAfterOrEqualTo(member1.getCreatedTime());
+        assertThat(member1.getLastModifiedBy()).isEqualTo(member1.getCreateBy());
+    }
+
+    //REQUIRES_NEW 는 바깥 트렌젝션과 다른 트렌젝션이므로 작성자/시각도 따로 구함 (AuditorAware 는 호출마다 랜덤 값)
+    @Test
+    public void auditingInRequiresNew() {
+        Member outer = memberRepository.save(new Member("auditOuter", 10));
+        em.flush();
+
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        Member inner = requiresNew.execute(status -> memberRepository.save(new Member("auditInner", 10)));
+        assertThat(inner.getCreateBy()).isNotNull().isNotEqualTo(outer.getCreateBy());
+
+        //바깥 트렌젝션으로 돌아오면 원래 값
+        Member after = memberRepository.save(new Member("auditAfter", 10));
+        em.flush();
+        assertThat(after.getCreateBy()).isEqualTo(outer.getCreateBy());
+    }
+
     @Test
     public void specBasic () throws Exception{
         //given
@@ -322,6 +600,50 @@ class MemberRepositoryTest {
     }
     
     
+    @Test
+    public void specCompiled() {
+        Team teamA = new Team("specTeamA");
+        Team teamB = new Team("specTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("specMember", 0, teamA));
+        em.persist(new Member("specMember", 0, teamB));
+        em.flush();
+        em.clear();
+
+        //조건 조합이 같으면 값만 바꿔서 같은 JPQL 로 실행
+        List<Member> resultA = memberRepository.findAll(MemberSpec.username("specMember").and(MemberSpec.teamName("specTeamA")));
+        List<Member> resultB = memberRepository.findAll(MemberSpec.username("specMember").and(MemberSpec.teamName("specTeamB")));
+        assertThat(resultA).extracting(m -> m.getTeam().getName()).containsExactly("specTeamA");
+        assertThat(resultB).extracting(m -> m.getTeam().getName()).containsExactly("specTeamB");
+
+        //빈 teamName 은 조건에서 빠짐, Criteria 로 실행한 결과와 같아야 함
+        MemberSpec spec = MemberSpec.username("specMember").and(MemberSpec.teamName(""));
+        assertThat(memberRepository.findAll(spec)).hasSize(2);
+        assertThat(memberRepository.count(spec)).isEqualTo(2);
+        assertThat(memberRepository.findAll((Specification<Member>) spec)).hasSize(2);
+    }
+
+    @Test
+    public void listDTO() {
+        Team team = new Team("listDtoTeam");
+        em.persist(team);
+        em.persist(new Member("!listDto2", 0, team));
+        em.persist(new Member("!listDto1", 0, null));
+        em.flush();
+        em.clear();
+
+        //팀 없는 회원도 나와야 함 (left join), 정렬은 Pageable 그대로 ("!" 는 다른 데이터보다 앞에 정렬됨)
+        Page<MemberDTO> page = memberRepository.findAllDTO(PageRequest.of(0, 100, Sort.by("username")), CountMode.EXACT);
+        List<MemberDTO> content = page.getContent().stream().filter(m -> m.getUsername().startsWith("!listDto")).toList();
+        assertThat(content).extracting(MemberDTO::getUsername).containsExactly("!listDto1", "!listDto2");
+        assertThat(content).extracting(MemberDTO::getTeamName).containsExactly(null, "listDtoTeam");
+        assertThat(page.getTotalElements()).isEqualTo(memberRepository.count());
+
+        //엔티티를 읽지 않았으므로 영속성 컨텍스트는 비어있음
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
     @Test
     public void queryByExample () throws Exception{
         //given
@@ -370,13 +692,42 @@ class MemberRepositoryTest {
 
         //when
 //        Member result = memberRepository.findByNativeQuery("m1");
-        Page<MemberProjection> result = memberRepository.findByNativeProjection(PageRequest.of(1, 10));
-        List<MemberProjection> content = result.getContent();
-        for (MemberProjection memberProjection : content) {
-            System.out.println("memberProjection.getUsername() = " + memberProjection.getUsername());
-            System.out.println("memberProjection.getTeamName() = " + memberProjection.getTeamName());
+        Page<MemberRow> result = memberRepository.findByNativeProjection(PageRequest.of(1, 10));
+        List<MemberRow> content = result.getContent();
+        for (MemberRow memberRow : content) {
+            System.out.println("memberRow.username() = " + memberRow.username());
+            System.out.println("memberRow.teamName() = " + memberRow.teamName());
         }
         //then
 
     }
+
+    @Test
+    public void nativeProjectionRecord() {
+        Team teamA = new Team("nativeTeamA");
+        em.persist(teamA);
+        em.persist(new Team("nativeTeamB"));
+        em.persist(new Member("!native1", 0, teamA));
+        em.persist(new Member("!native2", 0, null));
+        em.flush();
+        em.clear();
+
+        //회원당 한 줄, 팀 없는 회원은 teamName == null ("!" 는 다른 데이터보다 앞에 정렬됨)
+        Slice<MemberRow> slice = memberRepository.findSliceByNativeProjection(PageRequest.of(0, 100, Sort.by("username")));
+        List<MemberRow> rows = slice.getContent().stream().filter(r -> r.username().startsWith("!native")).toList();
+        assertThat(rows).containsExactly(
+                new MemberRow(rows.get(0).id(), "!native1", "nativeTeamA"),
+                new MemberRow(rows.get(1).id(), "!native2", null));
+        assertThat(memberRepository.findByNativeProjection(PageRequest.of(0, 1)).getTotalElements()).isEqualTo(memberRepository.count());
+        assertThatThrownBy(() -> memberRepository.findByNativeProjection(PageRequest.of(0, 10, Sort.by("age"))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        //JPQL 도 별칭으로 매핑, 별칭 순서가 record 와 달라도 됨
+        List<MemberRow> jpql = em.createQuery("select t.name as teamName, m.username as username, m.id as id " +
+                        "from Member m left join m.team t where m.username = '!native1'")
+                .unwrap(org.hibernate.query.Query.class)
+                .setTupleTransformer(ProjectionMapper.of(MemberRow.class))
+                .getResultList();
+        assertThat(jpql).containsExactly(rows.get(0));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package data.jpa.springdatajpa.repository;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.monitor.SqlScope;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+//인덱스는 커밋된 뒤에 반영되므로 테스트 트렌젝션 없이 TransactionTemplate 으로 나눠서 확인
+@SpringBootTest
+class MemberUsernameIndexTest {
+
+    @Autowired
+    MemberUsernameIndex index;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate tx;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void buildAndFollowChanges() {
+        Long existing = tx.execute(status -> memberRepository.save(new Member("indexBefore", 10)).getId());
+        index.rebuild();
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.findId("indexBefore")).isEqualTo(OptionalLong.of(existing));
+
+        //insert
+        Long id = tx.execute(status -> memberRepository.save(new Member("indexMember", 10)).getId());
+        assertThat(index.findId("indexMember")).isEqualTo(OptionalLong.of(id));
+
+        //롤백된 insert 는 반영되지 않음
+        tx.executeWithoutResult(status -> {
+            memberRepository.saveAndFlush(new Member("indexRollback", 10));
+            status.setRollbackOnly();
+        });
+        assertThat(index.findIds("indexRollback")).isEmpty();
+
+        //username 변경
+        tx.executeWithoutResult(status -> memberRepository.findById(id).get().setUsername("indexRenamed"));
+        assertThat(index.findIds("indexMember")).isEmpty();
+        assertThat(index.findId("indexRenamed")).isEqualTo(OptionalLong.of(id));
+
+        //같은 username 이 여러개면 단건 조회는 예외
+        Long other = tx.execute(status -> memberRepository.save(new Member("indexRenamed", 20)).getId());
+        assertThat(index.findIds("indexRenamed")).containsExactlyInAnyOrder(id, other);
+        assertThatThrownBy(() -> index.findId("indexRenamed")).isInstanceOf(IncorrectResultSizeDataAccessException.class);
+
+        //delete
+        tx.executeWithoutResult(status -> memberRepository.deleteById(other));
+        assertThat(index.findId("indexRenamed")).isEqualTo(OptionalLong.of(id));
+    }
+
+    @Test
+    public void usernameLookupsUseIndex() {
+        Long id = tx.execute(status -> memberRepository.save(new Member("indexLookup", 10)).getId());
+        index.rebuild();
+
+        //username 조건 없이 pk 로 한번, 두번째부터는 쿼리 캐시
+        try (SqlScope scope = SqlScope.recording("usernameIndexLoad")) {
+            assertThat(memberRepository.findMemberByUsername("indexLookup").getId()).isEqualTo(id);
+            assertThat(scope.getStatements()).hasSize(1).noneMatch(sql -> sql.contains("username="));
+        }
+        try (SqlScope scope = SqlScope.recording("usernameIndexHit")) {
+            assertThat(memberRepository.findOptionalByUsername("indexLookup")).get().extracting(Member::getId).isEqualTo(id);
+            assertThat(memberRepository.findByUsername("indexLookup")).extracting(Member::getId).containsExactly(id);
+            assertThat(scope.getStatements()).isEmpty();
+        }
+
+        //readOnly 트렌젝션 안에서는 영속성 컨텍스트의 엔티티를 그대로 돌려줌
+        TransactionTemplate readOnly = new TransactionTemplate(tx.getTransactionManager());
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            Member loaded = memberRepository.findById(id).get();
+            assertThat(memberRepository.findMemberByUsername("indexLookup")).isSameAs(loaded);
+        });
+    }
+
+    //리스너를 거치지 않고 들어간 행(JDBC, 다른 인스턴스)은 인덱스에 없으므로 username 쿼리로 찾음
+    @Test
+    public void missFallsBackToDatabase() {
+        index.rebuild();
+        Long id = tx.execute(status -> {
+            Long lo = jdbcTemplate.queryForObject("select next_val from member_seq for update", Long.class);
+            jdbcTemplate.update("update member_seq set next_val = ?", lo + 1);
+            jdbcTemplate.update("insert into member (member_id, age, username) values (?, ?, ?)", lo, 10, "indexJdbc");
+            return lo;
+        });
+        assertThat(index.findIds("indexJdbc")).isEmpty();
+
+        assertThat(memberRepository.findMemberByUsername("indexJdbc").getId()).isEqualTo(id);
+        assertThat(memberRepository.findByUsername("indexJdbc")).extracting(Member::getId).containsExactly(id);
+    }
+
+    @Test
+    public void growsAndReusesRemovedSlots() {
+        index.rebuild();    //시작할 때의 백그라운드 빌드가 끝나기를 기다림
+        int before = index.size();
+        for (long i = 1; i <= 50_000; i++) {
+            index.put("indexGrow" + i, 1_000_000_000L + i);
+        }
+        for (long i = 1; i <= 50_000; i += 2) {
+            index.remove("indexGrow" + i, 1_000_000_000L + i);
+        }
+        assertThat(index.size()).isEqualTo(before + 25_000);
+        assertThat(index.findIds("indexGrow1")).isEmpty();
+        assertThat(index.findId("indexGrow50000")).isEqualTo(OptionalLong.of(1_000_050_000L));
+
+        for (long i = 2; i <= 50_000; i += 2) {
+            index.remove("indexGrow" + i, 1_000_000_000L + i);
+        }
+        assertThat(index.size()).isEqualTo(before);
+    }
+}
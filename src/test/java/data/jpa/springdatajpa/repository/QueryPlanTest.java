@@ -0,0 +1,124 @@
+package data.jpa.springdatajpa.repository;
+
+import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.monitor.SqlScope;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 자주 쓰이는 Member 조회/수정 쿼리의 실행계획 검사
+ * 쿼리가 실제로 보낸 SQL 을 SqlScope 로 받아서 EXPLAIN 하고, full scan(type=ALL) 이나 filesort 가 있으면 실패
+ * -> @Table(indexes) 를 지우거나 조건/정렬을 인덱스와 안 맞게 바꾸면 여기서 걸림
+ * 행이 적으면 옵티마이저가 인덱스 대신 full scan 을 고르므로 충분히 넣고 ANALYZE TABLE 후에 확인
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final int ROWS = 20_000;
+    private static final int AGES = 100;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJPARepository memberJPARepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    void seed() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            teams.add(new Team("planTeam" + i));
+        }
+        teams = teamRepository.saveAllInChunks(teams);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            members.add(new Member("plan" + i, i % AGES, teams.get(i % teams.size())));
+        }
+        memberRepository.saveAllInChunks(members);
+        jdbcTemplate.execute("analyze table member, team");
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("delete from member where username like 'plan%'");
+        jdbcTemplate.update("delete from team where name like 'planTeam%'");
+    }
+
+    @Test
+    public void hotQueriesUseIndexes() {
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findByUsername", () -> memberRepository.findByUsername("plan1"));
+        queries.put("findListByUsername", () -> memberRepository.findListByUsername("plan2"));
+        queries.put("findMemberByUsername", () -> memberRepository.findMemberByUsername("plan3"));
+        queries.put("findOptionalByUsername", () -> memberRepository.findOptionalByUsername("plan4"));
+        queries.put("findLockByUsername", () -> memberRepository.findLockByUsername("plan5"));
+        queries.put("findByNativeQuery", () -> memberRepository.findByNativeQuery("plan6"));
+        queries.put("findQueryCustom", () -> memberRepository.findQueryCustom("plan7", 1));
+        queries.put("findByUsernameAndAgeGreaterThan", () -> memberRepository.findByUsernameAndAgeGreaterThan("plan8", 1));
+        queries.put("findMemberEntityGraphByUsername", () -> memberRepository.findMemberEntityGraphByUsername("plan9"));
+        queries.put("collectionParam", () -> memberRepository.collectionParam(List.of("plan10", "plan11", "plan12")));
+        queries.put("findByAge", () -> memberRepository.findByAge(10, PageRequest.of(3, 10, Sort.by("username"))));
+        queries.put("findSliceByAge", () -> memberRepository.findSliceByAge(11, PageRequest.of(0, 10, Sort.by("username"))));
+        queries.put("countByAge", () -> memberRepository.countByAge(12));
+        queries.put("findByAgeOrderByUsernameAscIdAsc", () -> memberRepository.findByAgeOrderByUsernameAscIdAsc(13,
+                ScrollPosition.forward(Map.of("username", "plan5013", "id", 0L)), Limit.of(10)));
+        queries.put("findAllByOrderByUsernameAscIdAsc", () -> memberRepository.findAllByOrderByUsernameAscIdAsc(
+                ScrollPosition.keyset(), Limit.of(10)));
+        queries.put("findDTOSliceByAge first", () -> memberRepository.findDTOSliceByAge(17, null, 10));
+        queries.put("findDTOSliceByAge after", () -> memberRepository.findDTOSliceByAge(17, new MemberDTO(0L, "plan5017", null), 10));
+        queries.put("bulkAgePlus", () -> memberRepository.bulkAgePlus(AGES - 5));
+        queries.put("JPA findByPage", () -> memberJPARepository.findByPage(14, 20, 10));
+        queries.put("JPA findByPageAfter", () -> memberJPARepository.findByPageAfter(15, "plan9015", Long.MAX_VALUE, 10));
+        queries.put("JPA totalCount", () -> memberJPARepository.totalCount(16));
+
+        List<String> violations = new ArrayList<>();
+        queries.forEach((name, query) -> {
+            for (String sql : capture(query)) {
+                for (Map<String, Object> row : jdbcTemplate.queryForList("explain " + sql)) {
+                    String extra = String.valueOf(row.get("Extra"));
+                    if ("ALL".equals(row.get("type")) || extra.contains("filesort")) {
+                        violations.add(name + " -> table=" + row.get("table") + ", type=" + row.get("type")
+                                + ", key=" + row.get("key") + ", extra=" + extra + "\n    " + sql);
+                    }
+                }
+            }
+        });
+
+        assertThat(violations).as(String.join("\n", violations)).isEmpty();
+    }
+
+    //롤백되는 트렌젝션 안에서 실행해 실제로 나간 SQL 만 받음 (bulkAgePlus 도 데이터를 바꾸지 않음)
+    private List<String> capture(Runnable query) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            try (SqlScope scope = SqlScope.recording("queryPlan")) {
+                query.run();
+                List<String> statements = new ArrayList<>(scope.getStatements());
+                assertThat(statements).as("쿼리가 DB 로 나가지 않음 (캐시 히트?)").isNotEmpty();
+                return statements;
+            }
+        });
+    }
+}
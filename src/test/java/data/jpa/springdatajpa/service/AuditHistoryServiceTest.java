@@ -0,0 +1,98 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.dto.MemberHistoryDTO;
+import data.jpa.springdatajpa.entity.AuditHistory;
+import data.jpa.springdatajpa.entity.CommitSequence;
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.AuditHistoryRepository;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 이력은 커밋된 뒤에 비동기로 쓰이므로 테스트 트렌젝션 없이 커밋하고 AuditHistoryWriter 를 기다린 뒤 확인
+ */
+@SpringBootTest
+class AuditHistoryServiceTest {
+
+    @Autowired
+    AuditHistoryService auditHistoryService;
+    @Autowired
+    AuditHistoryWriter writer;
+    @Autowired
+    AuditHistoryRepository auditHistoryRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate tx;
+
+    @Test
+    public void memberAtPointInTime() throws Exception {
+        LocalDateTime beforeInsert = LocalDateTime.now();
+        Thread.sleep(5);
+        Long id = tx.execute(status -> memberRepository.save(new Member("historyMember", 930)).getId());
+        LocalDateTime afterInsert = written();
+
+        tx.executeWithoutResult(status -> memberRepository.findById(id).get().setAge(931));
+        LocalDateTime afterUpdate = written();
+
+        //롤백된 변경은 이력에 남지 않음
+        tx.executeWithoutResult(status -> {
+            memberRepository.findById(id).get().setAge(999);
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+        written();
+        assertThat(auditHistoryRepository.findByEntityTypeAndEntityIdOrderByCommitSeqAsc(AuditHistory.EntityType.MEMBER, id))
+                .extracting(AuditHistory::getOperation)
+                .containsExactly(AuditHistory.Operation.INSERT, AuditHistory.Operation.UPDATE);
+
+        memberRepository.bulkAgePlusInRange(931, id, id);     //벌크는 행 대신 조건만 남음
+        LocalDateTime afterBulk = written();
+
+        memberRepository.deleteById(id);
+        LocalDateTime afterDelete = written();
+
+        assertThat(auditHistoryService.memberAt(id, beforeInsert)).isEmpty();
+        assertThat(auditHistoryService.memberAt(id, afterInsert)).map(MemberHistoryDTO::getAge).contains(930);
+        assertThat(auditHistoryService.memberAt(id, afterUpdate)).map(MemberHistoryDTO::getAge).contains(931);
+        Optional<MemberHistoryDTO> bulked = auditHistoryService.memberAt(id, afterBulk);
+        assertThat(bulked).map(MemberHistoryDTO::getAge).contains(932);
+        assertThat(bulked).map(MemberHistoryDTO::getUsername).contains("historyMember");
+        assertThat(auditHistoryService.memberAt(id, afterDelete)).isEmpty();
+    }
+
+    //이력이 큐에 들어간 순서(= id 순서)가 커밋 순서와 달라도 commitSeq 순서로 다시 적용
+    @Test
+    public void replayFollowsCommitOrder() throws Exception {
+        long memberId = 9_000_000_000L + System.nanoTime() % 1_000_000_000L;    //다른 회원의 벌크 범위와 겹치지 않게
+        LocalDateTime changedAt = LocalDateTime.now();
+        AuditHistory snapshot = AuditHistory.member(AuditHistory.Operation.UPDATE, memberId, changedAt, "historyOrder",
+                "historyOrder", 940, null);
+        snapshot.markCommitted(CommitSequence.next());
+        AuditHistory bulk = AuditHistory.bulkAgePlus(940, memberId, memberId, changedAt);
+        bulk.markCommitted(CommitSequence.next());
+
+        writer.enqueue(List.of(bulk));      //나중에 커밋된 벌크가 먼저 insert 되어 id 가 더 작음
+        written();
+        writer.enqueue(List.of(snapshot));
+        LocalDateTime at = written();
+
+        assertThat(auditHistoryService.memberAt(memberId, at)).map(MemberHistoryDTO::getAge).contains(941);
+    }
+
+    private LocalDateTime written() throws InterruptedException {
+        assertThat(writer.awaitWritten(Duration.ofSeconds(10))).isTrue();
+        Thread.sleep(5);    //다음 변경과 시각이 겹치지 않도록
+        return LocalDateTime.now();
+    }
+}
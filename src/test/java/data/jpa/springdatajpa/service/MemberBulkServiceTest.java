@@ -0,0 +1,85 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.MemberJPARepository;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 청크마다 별도 트렌젝션으로 커밋하므로 테스트 트렌젝션(@Transactional) 없이 실행
+ */
+@SpringBootTest(properties = {"app.bulk-update.chunk-size=3", "app.bulk-update.parallelism=2"})
+class MemberBulkServiceTest {
+
+    @Autowired
+    MemberBulkService memberBulkService;
+    @Autowired
+    ChunkedBulkUpdateExecutor executor;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJPARepository memberJPARepository;
+
+    @Test
+    public void chunkedBulkAgePlus() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(new Member("chunkedBulk" + i, i % 2 == 0 ? 900 : 5));
+        }
+        members = memberRepository.saveAllInChunks(members);
+
+        BulkUpdateResult result = memberBulkService.bulkAgePlus(900);
+
+        assertThat(result.getUpdated()).isGreaterThanOrEqualTo(5);
+        assertThat(memberRepository.findById(members.get(0).getId()).get().getAge()).isEqualTo(901);
+        assertThat(memberRepository.findById(members.get(1).getId()).get().getAge()).isEqualTo(5);
+    }
+
+    @Test
+    public void chunkedBulkAgePlusWithJpaRepository() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(new Member("chunkedJpaBulk" + i, i % 2 == 0 ? 950 : 5));
+        }
+        members = memberRepository.saveAllInChunks(members);
+
+        BulkUpdateResult result = memberJPARepository.bulkAgePlusInChunks(950, 3, 2);
+
+        assertThat(result.getUpdated()).isGreaterThanOrEqualTo(5);
+        assertThat(memberRepository.findById(members.get(0).getId()).get().getAge()).isEqualTo(951);
+        assertThat(memberRepository.findById(members.get(1).getId()).get().getAge()).isEqualTo(5);
+    }
+
+    @Test
+    public void resumeAfterFailure() {
+        List<IdRange> ranges = IdRange.split(1, 10, 2);     //5개 청크
+        AtomicInteger calls = new AtomicInteger();
+        List<IdRange> applied = new ArrayList<>();
+
+        ChunkedBulkUpdateExecutor.RangeUpdate failOnThird = (fromId, toId) -> {
+            if (calls.incrementAndGet() == 3) {
+                throw new IllegalStateException("chunk failure");
+            }
+            applied.add(new IdRange(fromId, toId));
+            return 1;
+        };
+        ChunkedBulkUpdateException e = catchThrowableOfType(
+                () -> executor.execute(ranges, 1, failOnThird), ChunkedBulkUpdateException.class);
+
+        assertThat(e.getUpdated()).isEqualTo(2);
+        assertThat(e.getRemaining()).containsExactlyElementsOf(ranges.subList(2, 5));
+
+        //남은 범위로 재개하면 각 청크가 정확히 한번씩 적용됨
+        BulkUpdateResult result = executor.execute(e.getRemaining(), 1, failOnThird);
+        assertThat(result.getUpdated()).isEqualTo(3);
+        assertThat(applied).containsExactlyElementsOf(ranges);
+    }
+}
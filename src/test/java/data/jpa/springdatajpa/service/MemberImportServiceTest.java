@@ -0,0 +1,133 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.entity.Team;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import data.jpa.springdatajpa.repository.MemberUsernameIndex;
+import data.jpa.springdatajpa.repository.TeamRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * batch 마다 writer 스레드의 별도 트렌젝션으로 커밋하므로 테스트 트렌젝션(@Transactional) 없이 실행
+ */
+@SpringBootTest(properties = {"app.member-import.batch-size=2", "app.member-import.writers=2"})
+class MemberImportServiceTest {
+
+    @Autowired
+    MemberImportService memberImportService;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberUsernameIndex memberUsernameIndex;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void importCsv() throws Exception {
+        String run = run();
+        Team existing = teamRepository.save(new Team(run + "TeamA"));
+        String newTeam = run + "Team, \"B\"";
+        String csv = ("teamName,AGE,username,ignored\n" +
+                "importTeamA,10,importCsv1,x\n" +
+                "\"importTeam, \"\"B\"\"\",20,\"importCsv2\",x\n" +
+                "\r\n" +
+                "\"importTeam, \"\"B\"\"\",,importCsv3,\r\n" +
+                ",40,importCsv4,x\n" +
+                "importTeamA,50,\"importCsv\n5\",x").replace("import", run);
+
+        MemberImportResult result = memberImportService.importMembers(stream(csv), MemberImportService.Format.CSV);
+
+        assertThat(result.getImported()).isEqualTo(5);
+        assertThat(result.getBatches()).isEqualTo(3);
+        assertThat(result.getCreatedTeams()).isEqualTo(1);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("select m.member_id, m.username, m.age, t.name, m.created_time, " +
+                "m.update_time, m.create_by, m.last_modified_by from member m left join team t on t.team_id = m.team_id " +
+                "where m.username like ? order by m.member_id", run + "Csv%");
+        assertThat(rows).extracting(r -> r.get("username"))
+                .containsExactly(run + "Csv1", run + "Csv2", run + "Csv3", run + "Csv4", run + "Csv\n5");
+        assertThat(rows).extracting(r -> ((Number) r.get("age")).intValue()).containsExactly(10, 20, 0, 40, 50);
+        assertThat(rows).extracting(r -> r.get("name"))
+                .containsExactly(run + "TeamA", newTeam, newTeam, null, run + "TeamA");
+        //감사 컬럼은 등록 전체에 같은 값
+        assertThat(rows).extracting(r -> r.get("created_time")).doesNotContainNull().containsOnly(rows.get(0).get("created_time"));
+        assertThat(rows).extracting(r -> r.get("update_time")).containsOnly(rows.get(0).get("created_time"));
+        assertThat(rows).extracting(r -> r.get("create_by")).doesNotContainNull().containsOnly(rows.get(0).get("create_by"));
+        assertThat(rows).extracting(r -> r.get("last_modified_by")).containsOnly(rows.get(0).get("create_by"));
+
+        assertThat(teamRepository.findById(existing.getId()).get().getMemberCount()).isEqualTo(2);
+        Long newTeamId = jdbcTemplate.queryForObject("select team_id from team where name = ?", Long.class, newTeam);
+        assertThat(teamRepository.findById(newTeamId).get().getMemberCount()).isEqualTo(2);
+
+        long firstId = ((Number) rows.get(0).get("member_id")).longValue();
+        assertThat(memberUsernameIndex.findIds(run + "Csv1")).containsExactly(firstId);
+    }
+
+    @Test
+    public void importNdjson() throws Exception {
+        String run = run();
+        String ndjson = """
+                {"id":1,"username":"importJson1","teamName":"importTeamJson"}
+                {"username":"importJson2","age":7,"teamName":"importTeamJson","extra":true}
+
+                {"username":"importJson3","age":8}
+                """.replace("import", run);
+
+        MemberImportResult result = memberImportService.importMembers(stream(ndjson), MemberImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(3);
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("select m.username, m.age, t.member_count from member m " +
+                "left join team t on t.team_id = m.team_id where m.username like ? order by m.member_id", run + "Json%");
+        assertThat(rows).extracting(r -> r.get("username")).containsExactly(run + "Json1", run + "Json2", run + "Json3");
+        assertThat(rows).extracting(r -> ((Number) r.get("age")).intValue()).containsExactly(0, 7, 8);
+        assertThat(((Number) rows.get(0).get("member_count")).longValue()).isEqualTo(2);
+    }
+
+    @Test
+    public void badRowKeepsCommittedBatches() {
+        String run = run();
+        String csv = "username,age\nimportBad1,1\nimportBad2,2\nimportBad3,3\nimportBad4,x\nimportBad5,5\n".replace("import", run);
+
+        MemberImportException e = catchThrowableOfType(
+                () -> memberImportService.importMembers(stream(csv), MemberImportService.Format.CSV), MemberImportException.class);
+
+        assertThat(e.getCause()).hasMessageContaining("5번째 줄");
+        //batch 2개 중 첫번째(importBad1, 2)는 커밋됨, 오류가 난 batch 는 넘기지 않음
+        assertThat(e.getImported()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member where username like ?", Long.class, run + "Bad%"))
+                .isEqualTo(2);
+    }
+
+    //JDBC insert 는 hibernate 를 거치지 않으므로 쿼리 캐시를 직접 무효화해야 새 회원이 보임
+    @Test
+    public void importInvalidatesQueryCache() throws Exception {
+        String run = run();
+        assertThat(memberRepository.getUsernameList()).doesNotContain(run + "Cached1");    //쿼리 캐시에 넣음
+
+        memberImportService.importMembers(stream(("username\n" + "importCached1\n").replace("import", run)),
+                MemberImportService.Format.CSV);
+
+        assertThat(memberRepository.getUsernameList()).contains(run + "Cached1");
+    }
+
+    //DB 를 다른 테스트와 같이 쓰므로 이름이 실행마다 다르게
+    private static String run() {
+        return "import" + Long.toString(System.nanoTime(), 36);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
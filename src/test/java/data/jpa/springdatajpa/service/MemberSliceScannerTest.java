@@ -0,0 +1,104 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.dto.MemberDTO;
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+//slice 는 백그라운드 스레드의 별도 트렌젝션에서 읽으므로 테스트 트렌젝션 없이 커밋된 데이터로 실행
+@SpringBootTest
+class MemberSliceScannerTest {
+
+    @Autowired
+    MemberSliceScanner scanner;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate tx;
+
+    @Test
+    public void scansAllSlicesInOrder() {
+        int age = 9301;
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            members.add(new Member("scan" + (i % 7), age));    //username 이 겹쳐도 member_id 로 이어감
+        }
+        members.add(new Member(null, age));
+        tx.executeWithoutResult(status -> memberRepository.saveAll(members));
+
+        List<Long> expected = memberRepository.findSliceByAge(age, PageRequest.of(0, 100, Sort.by("username", "id")))
+                .map(Member::getId).getContent();
+
+        List<Integer> sizes = new ArrayList<>();
+        List<Long> scanned = new ArrayList<>();
+        try (PrefetchingSliceIterator<MemberDTO> slices = scanner.scanByAge(age, 5, 2)) {
+            while (slices.hasNext()) {
+                List<MemberDTO> slice = slices.next();
+                sizes.add(slice.size());
+                slice.forEach(m -> scanned.add(m.getId()));
+            }
+        }
+        assertThat(sizes).containsExactly(5, 5, 5, 5, 4);
+        assertThat(scanned).isEqualTo(expected);
+
+        //정확히 slice 크기로 나누어 떨어지는 경우, 마지막 빈 slice 는 내보내지 않음
+        try (Stream<MemberDTO> stream = scanner.scanByAge(age, 8, 1).stream()) {
+            assertThat(stream.map(MemberDTO::getId).toList()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void closeStopsPrefetch() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<Integer> fetched = new ArrayList<>();
+            PrefetchingSliceIterator<Integer> slices = PrefetchingSliceIterator.start(executor, 2, 1, last -> {
+                int from = last == null ? 0 : last + 1;
+                synchronized (fetched) {
+                    fetched.add(from);
+                }
+                return List.of(from, from + 1);     //끝이 없는 소스
+            });
+            assertThat(slices.next()).containsExactly(0, 1);
+            slices.close();
+            assertThat(slices.hasNext()).isFalse();
+
+            //큐(depth 1) + 읽는 중 1개 이상은 미리 읽지 않음
+            executor.submit(() -> { }).get();   //취소된 producer 가 끝난 뒤
+            synchronized (fetched) {
+                assertThat(fetched.size()).isLessThanOrEqualTo(3);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failurePropagates() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (PrefetchingSliceIterator<Integer> slices = PrefetchingSliceIterator.start(executor, 2, 2, last -> {
+            if (last != null) {
+                throw new IllegalStateException("boom");
+            }
+            return List.of(1, 2);
+        })) {
+            assertThat(slices.next()).containsExactly(1, 2);
+            assertThatThrownBy(slices::hasNext).hasMessage("boom");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package data.jpa.springdatajpa.service;
+
+import data.jpa.springdatajpa.entity.Member;
+import data.jpa.springdatajpa.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+//시도마다 커밋되는 트렌젝션을 쓰므로 테스트 트렌젝션 없이 실행
+@SpringBootTest(properties = {"app.optimistic-retry.max-attempts=3", "app.optimistic-retry.initial-backoff=1ms"})
+class OptimisticRetryExecutorTest {
+
+    @Autowired
+    OptimisticRetryExecutor retryExecutor;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate tx;
+
+    @Test
+    public void retriesOnVersionConflict() {
+        Long id = tx.execute(status -> memberRepository.save(new Member("optimistic", 40)).getId());
+        AtomicInteger attempts = new AtomicInteger();
+
+        Member result = retryExecutor.execute(() -> {
+            Member member = memberRepository.findById(id).get();
+            if (attempts.incrementAndGet() == 1) {
+                //첫 시도 중에 다른 트렌젝션이 먼저 커밋 -> 이 시도는 커밋할 때 버전이 맞지 않아 실패
+                retryExecutor.run(() -> memberRepository.findById(id).get().setAge(100));
+            }
+            member.setAge(member.getAge() + 1);
+            return member;
+        });
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(result.getAge()).isEqualTo(101);     //두번째 시도는 다른 트렌젝션의 변경을 읽고 다시 계산
+        assertThat(memberRepository.findById(id).get().getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        Long id = tx.execute(status -> memberRepository.save(new Member("optimisticExhausted", 40)).getId());
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retryExecutor.run(() -> {
+            attempts.incrementAndGet();
+            Member member = memberRepository.findById(id).get();
+            retryExecutor.run(() -> memberRepository.findById(id).get().setAge(member.getAge() + 10));
+            member.setAge(member.getAge() + 1);
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void skipLockedClaim() {
+        tx.executeWithoutResult(status -> {
+            memberRepository.save(new Member("claim1", 970));
+            memberRepository.save(new Member("claim2", 970));
+        });
+
+        tx.executeWithoutResult(status -> {
+            List<Member> first = memberRepository.claimByAge(970, PageRequest.of(0, 1));
+            //첫 트렌젝션이 잡고 있는 동안 다른 트렌젝션은 기다리지 않고 다음 행을 가져감
+            List<Member> second = retryExecutor.execute(() -> memberRepository.claimByAge(970, PageRequest.of(0, 1)));
+            assertThat(first).hasSize(1);
+            assertThat(second).hasSize(1);
+            assertThat(second.get(0).getId()).isNotEqualTo(first.get(0).getId());
+        });
+    }
+}